@@ -0,0 +1,137 @@
+package BasicPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+    JMH benchmarks for the ArraysClass helpers.
+
+    - size: 1K fits in L1, 100K in L2/L3, 10M only in main memory
+    - distribution: RANDOM values, already SORTED values, or one CONSTANT value
+    - the searched value is always present, at a position that depends on the
+      distribution, so containsElement / findIndex are not measuring a miss
+    - helpers that modify their input (reverseArray, findIndex) get a fresh
+      copy each call, the copy is measured separately by cloneOnly
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ArraysClassBenchmark {
+
+    public enum Distribution { RANDOM, SORTED, CONSTANT }
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "CONSTANT"})
+    public Distribution distribution;
+
+    private int[] data;
+    private int[] sorted;
+    private int[] other;
+    private int target;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(42);
+        data = new int[size];
+        for(int i = 0; i < size; i++){
+            switch(distribution){
+                case RANDOM: data[i] = random.nextInt(); break;
+                case SORTED: data[i] = i * 3; break;
+                default: data[i] = 7; break;
+            }
+        }
+        // a value from the middle of the array
+        target = data[size / 2];
+        sorted = data.clone();
+        Arrays.sort(sorted);
+        other = Arrays.copyOf(data, 8);
+    }
+
+    @Benchmark
+    public int findMax(){
+        return ArraysClass.findMax(data);
+    }
+
+    @Benchmark
+    public int findMin(){
+        return ArraysClass.findMin(data);
+    }
+
+    @Benchmark
+    public int calculateSum(){
+        return ArraysClass.calculateSum(data);
+    }
+
+    @Benchmark
+    public long calculateLongSum(){
+        return ArraysClass.calculateLongSum(data);
+    }
+
+    @Benchmark
+    public int calculateAverage(){
+        return ArraysClass.calculateAverage(data);
+    }
+
+    @Benchmark
+    public ArrayKernels.Stats fusedStats(){
+        return ArrayKernels.stats(data);
+    }
+
+    @Benchmark
+    public int[] cloneOnly(){
+        return data.clone();
+    }
+
+    @Benchmark
+    public int[] reverseArray(){
+        return ArraysClass.reverseArray(data.clone());
+    }
+
+    @Benchmark
+    public boolean containsElement(){
+        return ArraysClass.containsElement(data, target);
+    }
+
+    @Benchmark
+    public int findIndex(){
+        return ArraysClass.findIndex(data.clone(), target);
+    }
+
+    @Benchmark
+    public int findIndexSorted(){
+        return ArraysClass.findIndexSorted(sorted, target);
+    }
+
+    @Benchmark
+    public int[] concatenateArrays(){
+        return ArraysClass.concatenateArrays(data, other);
+    }
+
+    @Benchmark
+    public int[] removeElementAtIndex(){
+        return ArraysClass.removeElementAtIndex(data, size / 2);
+    }
+
+    @Benchmark
+    public int[] insertElementAtIndex(){
+        return ArraysClass.insertElementAtIndex(data, size / 2, target);
+    }
+}
@@ -0,0 +1,66 @@
+package BasicPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/*
+    StringClass.demonstrateStringFormatting's "Name: %s, Age: %d, Salary: $%.2f%n"
+    with String.format, a reused Formatter and a reused FastFormat.Line.
+
+    All three write into / return the same text (FastFormat formats like
+    Locale.ROOT, so the other two are given Locale.ROOT too). Look at gc.alloc.rate.norm
+    (bytes per operation): FastFormat should be 0 once the Line has grown.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FastFormatBenchmark {
+    static final String TEMPLATE = "Name: %s, Age: %d, Salary: $%.2f%n";
+
+    public String name = "Alice";
+    public int age = 25;
+    public double salary = 75000.50;
+
+    private StringBuilder formatterText;
+    private Formatter formatter;
+    private FastFormat.Line line;
+
+    @Setup
+    public void setup(){
+        formatterText = new StringBuilder(64);
+        formatter = new Formatter(formatterText, Locale.ROOT);
+        line = FastFormat.compile(TEMPLATE).newLine();
+    }
+
+    @Benchmark
+    public String stringFormat(){
+        return String.format(Locale.ROOT, TEMPLATE, name, age, salary);
+    }
+
+    @Benchmark
+    public StringBuilder reusedFormatter(){
+        formatterText.setLength(0);
+        formatter.format(TEMPLATE, name, age, salary);
+        return formatterText;
+    }
+
+    @Benchmark
+    public FastFormat.Line fastFormat(){
+        return line.begin().arg(name).arg(age).arg(salary);
+    }
+}
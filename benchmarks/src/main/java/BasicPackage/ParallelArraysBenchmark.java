@@ -0,0 +1,59 @@
+package BasicPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+    JMH benchmark to tune ParallelArrays.SERIAL_THRESHOLD.
+
+    - serial: ArrayKernels.sum on one thread
+    - forked: the fork/join SumTask at every size, even below the threshold
+    - size: 32K (one chunk) up to 16M ints; the threshold belongs at the
+      smallest size where forked is clearly faster than serial on the
+      target machine (with its real core count)
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ParallelArraysBenchmark {
+
+    @Param({"32768", "131072", "262144", "524288", "1048576", "4194304", "16777216"})
+    public int size;
+
+    private int[] data;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup(){
+        data = new int[size];
+        for(int i = 0; i < size; i++){
+            data[i] = i % 1000;
+        }
+        pool = ForkJoinPool.commonPool();
+    }
+
+    @Benchmark
+    public long serial(){
+        return ArrayKernels.sum(data);
+    }
+
+    @Benchmark
+    public long forked(){
+        return ParallelArrays.forkedSum(data, pool);
+    }
+}
@@ -0,0 +1,77 @@
+package BasicPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    JMH version of StringClass.compareStringPerformance.
+
+    Appends the same piece `count` times with String +=, StringBuilder and
+    StringBuffer. Run with the gc profiler (BenchmarkRunner does this) to see
+    the bytes allocated per operation next to the time.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StringConcatBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int count;
+
+    @Param({"a", "hello world "})
+    public String piece;
+
+    @Benchmark
+    public String stringConcat(){
+        String str = "";
+        for(int i = 0; i < count; i++){
+            str += piece;
+        }
+        return str;
+    }
+
+    @Benchmark
+    public String stringBuilder(){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < count; i++){
+            sb.append(piece);
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String stringBuilderPresized(){
+        StringBuilder sb = new StringBuilder(count * piece.length());
+        for(int i = 0; i < count; i++){
+            sb.append(piece);
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String stringBuffer(){
+        StringBuffer sb = new StringBuffer();
+        for(int i = 0; i < count; i++){
+            sb.append(piece);
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String repeat(){
+        return piece.repeat(count);
+    }
+}
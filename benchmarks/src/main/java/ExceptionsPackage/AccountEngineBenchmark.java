@@ -0,0 +1,109 @@
+package ExceptionsPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    AccountEngine under contention: CAS deposits and striped transfers vs the
+    same transfers behind one global lock.
+
+    accounts = 16 -> every thread fights over the same few accounts
+    accounts = 4096 -> threads mostly touch different accounts and stripes
+
+    Throughput per thread count, 1 to 64 threads (one JMH run per count):
+    java -cp benchmarks/target/benchmarks.jar ExceptionsPackage.AccountEngineBenchmark
+    or a single count through the normal runner:
+    java -jar benchmarks/target/benchmarks.jar AccountEngine -t 16
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccountEngineBenchmark {
+    static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    // large enough that no random walk of 1 cent transfers runs dry
+    static final long INITIAL = 1_000_000_000L;
+
+    @Param({"16", "4096"})
+    public int accounts;
+
+    private AccountEngine engine;
+    private long[] lockedBalances;
+    private final Object globalLock = new Object();
+
+    @State(Scope.Thread)
+    public static class Picker {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next(int bound){
+            return random.nextInt(bound);
+        }
+    }
+
+    @Setup
+    public void setup(){
+        engine = new AccountEngine(accounts);
+        lockedBalances = new long[accounts];
+        for(int i = 0; i < accounts; i++){
+            engine.open(INITIAL);
+            lockedBalances[i] = INITIAL;
+        }
+    }
+
+    @Benchmark
+    public long casDeposit(Picker picker) throws BalanceOverflow {
+        return engine.deposit(picker.next(accounts), 1);
+    }
+
+    @Benchmark
+    public void stripedTransfer(Picker picker) throws Exception {
+        int from = picker.next(accounts);
+        int to = picker.next(accounts - 1);
+        engine.transfer(from, to >= from ? to + 1 : to, 1);
+    }
+
+    @Benchmark
+    public void globalLockTransfer(Picker picker) throws Exception {
+        int from = picker.next(accounts);
+        int to = picker.next(accounts - 1);
+        if(to >= from) to++;
+        synchronized(globalLock){
+            if(lockedBalances[from] < 1){
+                throw new Exception("Insufficient Balance");
+            }
+            lockedBalances[from] -= 1;
+            lockedBalances[to] += 1;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for(int threads: THREADS){
+            new Runner(new OptionsBuilder()
+                    .include(AccountEngineBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-account-engine-t" + threads + ".json")
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ExceptionsPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    BankAccount accept and reject latency: exceptions vs Outcome.
+
+    accept*  -> a deposit followed by a withdraw of the same amount, both accepted
+    reject*  -> a withdraw larger than the balance / a deposit over 2000.00
+
+    exception  = withdraw / deposit, a new exception with a full stack trace
+    stackless  = tryDeposit + BalanceOverflow.withoutStackTrace
+    outcome    = tryWithdraw / tryDeposit, nothing allocated
+
+    gc.alloc.rate.norm shows the bytes per rejection.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BankAccountBenchmark {
+    public float amount = 100;
+    public float tooMuch = 1_000_000;
+
+    private BankAccount account;
+
+    @Setup
+    public void setup(){
+        account = new BankAccount(1000);
+    }
+
+    @Benchmark
+    public float acceptException() throws Exception {
+        account.deposit(amount);
+        account.withdraw(amount);
+        return account.balance;
+    }
+
+    @Benchmark
+    public float acceptOutcome(){
+        account.tryDeposit(amount);
+        account.tryWithdraw(amount);
+        return account.balance;
+    }
+
+    @Benchmark
+    public Object rejectWithdrawException(){
+        try{
+            account.withdraw(tooMuch);
+            return null;
+        }catch (Exception e){
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object rejectWithdrawOutcome(){
+        return account.tryWithdraw(tooMuch);
+    }
+
+    @Benchmark
+    public Object rejectDepositException(){
+        try{
+            account.deposit(tooMuch);
+            return null;
+        }catch (BalanceOverflow e){
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object rejectDepositStackless(){
+        try{
+            if(account.tryDeposit(tooMuch) == BankAccount.Outcome.BALANCE_OVERFLOW){
+                throw BalanceOverflow.withoutStackTrace("Balance overflow error", account.balance);
+            }
+            return null;
+        }catch (BalanceOverflow e){
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object rejectDepositOutcome(){
+        return account.tryDeposit(tooMuch);
+    }
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+    Entry point of benchmarks.jar.
+
+    java -jar benchmarks/target/benchmarks.jar                   -> everything
+    java -jar benchmarks/target/benchmarks.jar ArraysClass       -> regex filter
+    java -jar benchmarks/target/benchmarks.jar -p size=1000 ...  -> any JMH option
+
+    Always adds the gc profiler (allocation rate, bytes/op) and writes the
+    results as JSON to jmh-result.json (override with -rff <file>), so two
+    releases can be compared with any JSON diff tool or jmh.morethan.io.
+*/
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON);
+        if(!cli.getResult().hasValue()){
+            options.result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
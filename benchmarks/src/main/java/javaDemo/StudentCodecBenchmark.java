@@ -0,0 +1,146 @@
+package javaDemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/*
+    StudentCodec vs ObjectOutputStream / ObjectInputStream, per record.
+
+    Writes go to an in-memory channel that only counts bytes, so the disk is
+    not part of the measurement. Bytes per record of both formats are printed
+    at the end of each trial (look for "bytes/record" in the output).
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StudentCodecBenchmark {
+    static final int RECORDS = 10_000;
+
+    @Param({"8", "64"})
+    public int nameLength;
+
+    private Student[] students;
+    private byte[] codecBytes;
+    private byte[] serializedBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        students = new Student[RECORDS];
+        for(int i = 0; i < RECORDS; i++){
+            // distinct names of exactly nameLength chars
+            String name = ("student-" + i + "x".repeat(nameLength)).substring(0, nameLength);
+            students[i] = new Student(i, name);
+        }
+
+        ByteArrayOutputStream codecOut = new ByteArrayOutputStream();
+        try(StudentCodec.Writer writer = new StudentCodec.Writer(Channels.newChannel(codecOut))){
+            for(Student student: students){
+                writer.write(student);
+            }
+        }
+        codecBytes = codecOut.toByteArray();
+
+        ByteArrayOutputStream serializedOut = new ByteArrayOutputStream();
+        try(ObjectOutputStream oos = new ObjectOutputStream(serializedOut)){
+            for(Student student: students){
+                oos.writeObject(student);
+            }
+        }
+        serializedBytes = serializedOut.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void report(){
+        System.out.printf("%nbytes/record: codec %.1f, ObjectOutputStream %.1f%n",
+                codecBytes.length / (double) RECORDS, serializedBytes.length / (double) RECORDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long codecWrite() throws IOException {
+        CountingChannel sink = new CountingChannel();
+        try(StudentCodec.Writer writer = new StudentCodec.Writer(sink)){
+            for(Student student: students){
+                writer.write(student);
+            }
+        }
+        return sink.bytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int serializationWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(serializedBytes.length);
+        try(ObjectOutputStream oos = new ObjectOutputStream(out)){
+            for(Student student: students){
+                oos.writeObject(student);
+            }
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void codecRead(Blackhole bh) throws IOException {
+        StudentCodec.Reader reader = new StudentCodec.Reader(Channels.newChannel(new ByteArrayInputStream(codecBytes)));
+        reader.forEach(bh::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void serializationRead(Blackhole bh) throws IOException, ClassNotFoundException {
+        try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serializedBytes))){
+            for(int i = 0; i < RECORDS; i++){
+                bh.consume(ois.readObject());
+            }
+        }
+    }
+
+    // a channel that throws the bytes away
+    static final class CountingChannel implements WritableByteChannel {
+        long bytes;
+
+        @Override
+        public int write(ByteBuffer src){
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen(){
+            return true;
+        }
+
+        @Override
+        public void close(){
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package BasicPackage;
+
+import java.util.Arrays;
+
+/*
+    Array Kernels in Java:
+    - A "kernel" is a tight loop that does one job over a big block of memory
+    - findMax, findMin and calculateSum each walk the whole array, so asking for
+      all three costs three full passes over memory
+    - Here min, max and sum are computed together in ONE fused pass
+
+    How the loop is made fast:
+    - The JIT (C2) turns simple counted loops over int[] into SIMD instructions
+      (SSE / AVX2 / AVX-512 / NEON) using the widest lanes the CPU supports.
+      This happens at runtime, so the same .class file uses AVX-512 on a server
+      and NEON on an ARM laptop
+    - Using 4 independent accumulators breaks the dependency chain between
+      iterations, so the CPU can keep several adds/compares in flight
+    - The sum is kept in a long so tens of millions of ints do not overflow
+
+    Note: the incubating Vector API (jdk.incubator.vector) needs
+    --add-modules on every javac/java call, so we rely on the JIT auto-vectorizer
+    and keep a plain scalar tail loop for the leftover elements.
+*/
+public class ArrayKernels {
+    // number of elements handled per unrolled iteration
+    private static final int UNROLL = 4;
+
+    private ArrayKernels(){}
+
+    // result of one fused pass, count == 0 means the range was empty
+    public static final class Stats {
+        public final int min;
+        public final int max;
+        public final long sum;
+        public final int count;
+
+        Stats(int min, int max, long sum, int count){
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+            this.count = count;
+        }
+
+        public double average(){
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        @Override
+        public String toString(){
+            return "Stats{min=" + min + ", max=" + max + ", sum=" + sum + ", count=" + count + "}";
+        }
+    }
+
+    public static Stats stats(int[] arr){
+        return stats(arr, 0, arr.length);
+    }
+
+    // min, max and sum of arr[from, to) in a single pass
+    public static Stats stats(int[] arr, int from, int to){
+        checkRange(arr, from, to);
+        int min0 = Integer.MAX_VALUE, min1 = Integer.MAX_VALUE, min2 = Integer.MAX_VALUE, min3 = Integer.MAX_VALUE;
+        int max0 = Integer.MIN_VALUE, max1 = Integer.MIN_VALUE, max2 = Integer.MIN_VALUE, max3 = Integer.MIN_VALUE;
+        long sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+
+        int i = from;
+        int bound = to - (to - from) % UNROLL;
+        for(; i < bound; i += UNROLL){
+            int a = arr[i], b = arr[i + 1], c = arr[i + 2], d = arr[i + 3];
+            min0 = Math.min(min0, a); max0 = Math.max(max0, a); sum0 += a;
+            min1 = Math.min(min1, b); max1 = Math.max(max1, b); sum1 += b;
+            min2 = Math.min(min2, c); max2 = Math.max(max2, c); sum2 += c;
+            min3 = Math.min(min3, d); max3 = Math.max(max3, d); sum3 += d;
+        }
+        // scalar tail
+        for(; i < to; i++){
+            int a = arr[i];
+            min0 = Math.min(min0, a); max0 = Math.max(max0, a); sum0 += a;
+        }
+
+        int min = Math.min(Math.min(min0, min1), Math.min(min2, min3));
+        int max = Math.max(Math.max(max0, max1), Math.max(max2, max3));
+        return new Stats(min, max, sum0 + sum1 + sum2 + sum3, to - from);
+    }
+
+    public static long sum(int[] arr){
+        return sum(arr, 0, arr.length);
+    }
+
+    public static long sum(int[] arr, int from, int to){
+        checkRange(arr, from, to);
+        long sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = from;
+        int bound = to - (to - from) % UNROLL;
+        for(; i < bound; i += UNROLL){
+            sum0 += arr[i];
+            sum1 += arr[i + 1];
+            sum2 += arr[i + 2];
+            sum3 += arr[i + 3];
+        }
+        for(; i < to; i++){
+            sum0 += arr[i];
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    // Integer.MIN_VALUE for an empty range, same as ArraysClass.findMax
+    public static int max(int[] arr){
+        return max(arr, 0, arr.length);
+    }
+
+    public static int max(int[] arr, int from, int to){
+        checkRange(arr, from, to);
+        int max0 = Integer.MIN_VALUE, max1 = Integer.MIN_VALUE, max2 = Integer.MIN_VALUE, max3 = Integer.MIN_VALUE;
+        int i = from;
+        int bound = to - (to - from) % UNROLL;
+        for(; i < bound; i += UNROLL){
+            max0 = Math.max(max0, arr[i]);
+            max1 = Math.max(max1, arr[i + 1]);
+            max2 = Math.max(max2, arr[i + 2]);
+            max3 = Math.max(max3, arr[i + 3]);
+        }
+        for(; i < to; i++){
+            max0 = Math.max(max0, arr[i]);
+        }
+        return Math.max(Math.max(max0, max1), Math.max(max2, max3));
+    }
+
+    // Integer.MAX_VALUE for an empty range, same as ArraysClass.findMin
+    public static int min(int[] arr){
+        return min(arr, 0, arr.length);
+    }
+
+    public static int min(int[] arr, int from, int to){
+        checkRange(arr, from, to);
+        int min0 = Integer.MAX_VALUE, min1 = Integer.MAX_VALUE, min2 = Integer.MAX_VALUE, min3 = Integer.MAX_VALUE;
+        int i = from;
+        int bound = to - (to - from) % UNROLL;
+        for(; i < bound; i += UNROLL){
+            min0 = Math.min(min0, arr[i]);
+            min1 = Math.min(min1, arr[i + 1]);
+            min2 = Math.min(min2, arr[i + 2]);
+            min3 = Math.min(min3, arr[i + 3]);
+        }
+        for(; i < to; i++){
+            min0 = Math.min(min0, arr[i]);
+        }
+        return Math.min(Math.min(min0, min1), Math.min(min2, min3));
+    }
+
+    private static void checkRange(int[] arr, int from, int to){
+        if(from < 0 || to > arr.length || from > to){
+            throw new ArrayIndexOutOfBoundsException("range [" + from + ", " + to + ") out of bounds for length " + arr.length);
+        }
+    }
+
+    public static void main(String[] args){
+        int[] data = new int[10_000_000];
+        for(int i = 0; i < data.length; i++){
+            data[i] = (i * 31) % 1_000_003 - 500_000;
+        }
+
+        // warm up so the JIT compiles (and vectorizes) the kernels
+        for(int i = 0; i < 20; i++){
+            stats(data);
+        }
+
+        long start = System.nanoTime();
+        Stats stats = stats(data);
+        long end = System.nanoTime();
+        System.out.println(stats + " in " + (end - start) / 1_000 + "us");
+
+        int[] big = new int[3_000_000];
+        Arrays.fill(big, Integer.MAX_VALUE);
+        System.out.println("int sum (overflows): " + ArraysClass.calculateSum(big));
+        System.out.println("long sum: " + ArraysClass.calculateLongSum(big));
+    }
+}
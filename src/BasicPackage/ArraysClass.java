@@ -220,6 +220,10 @@ public class ArraysClass {
         int sum = calculateSum(testArray);
         System.out.println("Sum of elements: " + sum);
 
+        // min, max and sum in one pass
+        ArrayKernels.Stats stats = ArrayKernels.stats(testArray);
+        System.out.println("Fused stats: " + stats);
+
         // Calculate average
         double average = calculateAverage(testArray);
         System.out.println("Average: " + average);
@@ -235,6 +239,10 @@ public class ArraysClass {
         int elementIndex = findIndex(testArray, 5);
         System.out.println("Index of 5: " + elementIndex);
 
+        // build the index once, then search as often as needed
+        SortedIndex sortedIndex = new SortedIndex(scores);
+        System.out.println("Index of 96 in scores: " + sortedIndex.indexOf(96));
+
         // 10. Array Performance and Memory
         System.out.println("\n10. Array Performance and Memory:");
 
@@ -263,31 +271,31 @@ public class ArraysClass {
         int[] afterInsertion = insertElementAtIndex(nums, 2, 99);
         System.out.println("After inserting 99 at index 2: " + Arrays.toString(afterInsertion));
 
+        // growable list, no new array per operation
+        IntArrayList list = IntArrayList.of(nums);
+        list.insert(2, 99);
+        list.addAll(moreNums);
+        System.out.println("IntArrayList after insert and concat: " + list);
+
         System.out.println("\nn=== End of Arrays Demo ===");
     }
     // helper functions....
+    // the loops live in ArrayKernels so the JIT can vectorize them
     public static int findMax(int[] arr){
-        int maxi = Integer.MIN_VALUE;
-        for (int j : arr) {
-            maxi = Math.max(j, maxi);
-        }
-        return maxi;
+        return ArrayKernels.max(arr);
     }
 
     public static int findMin(int[] arr){
-        int mini = Integer.MAX_VALUE;
-        for (int j : arr) {
-            mini = Math.min(j, mini);
-        }
-        return mini;
+        return ArrayKernels.min(arr);
     }
 
+    // int result wraps around on overflow, use calculateLongSum for big arrays
     public static int calculateSum(int[] arr){
-        int sum = 0;
-        for(int j: arr){
-            sum += j;
-        }
-        return sum;
+        return (int) ArrayKernels.sum(arr);
+    }
+
+    public static long calculateLongSum(int[] arr){
+        return ArrayKernels.sum(arr);
     }
 
     public static int calculateAverage(int[] arr){
@@ -317,67 +325,48 @@ public class ArraysClass {
 
     public static int findIndex(int[] arr, int x){
         // binary search only applicable in sorted array
+        // note: this sorts the caller's array, use findIndexSorted or SortedIndex to avoid that
         Arrays.sort(arr);
-        int low = 0, high = arr.length - 1;
-        while(low <= high){
-            int mid = low + (high - low) / 2;
-            System.out.println("mid: " + mid + " arr[mid]: " + arr[mid]);
-            if(arr[mid] == x) return mid;
-            else if(arr[mid] > x) high = mid - 1;
-            else low = mid + 1;
+        return findIndexSorted(arr, x);
+    }
+
+    // arr must already be sorted, nothing is modified or printed
+    public static int findIndexSorted(int[] arr, int x){
+        int base = 0, n = arr.length;
+        if(n == 0) return -1;
+        // branchless: the loop always runs log2(n) times and the
+        // comparison becomes a conditional move instead of a jump
+        while(n > 1){
+            int half = n >>> 1;
+            base = arr[base + half - 1] < x ? base + half : base;
+            n -= half;
         }
-        return -1;
+        return arr[base] == x ? base : -1;
     }
 
+    // for many inserts/removes in a row use IntArrayList instead,
+    // these helpers copy the whole array on every call
     public static int[] concatenateArrays(int[] arr, int[] num){
         int[] combined = new int[arr.length + num.length];
-        int index = 0;
-
-        for(int i: arr){
-            combined[index] = i;
-            index++;
-        }
-
-        for(int i: num){
-            combined[index] = i;
-            index++;
-        }
-
+        System.arraycopy(arr, 0, combined, 0, arr.length);
+        System.arraycopy(num, 0, combined, arr.length, num.length);
         return combined;
     }
 
     public static int[] removeElementAtIndex(int[] arr, int ind){
         if(ind >= arr.length || ind < 0) return arr;
         int[] result = new int[arr.length - 1];
-        int index = 0;
-        int count = 0;
-        for(int i: arr){
-            if(count == 2){
-                count++;
-                continue;
-            }
-
-            result[index] = i;
-            index++;
-            count++;
-        }
+        System.arraycopy(arr, 0, result, 0, ind);
+        System.arraycopy(arr, ind + 1, result, ind, arr.length - ind - 1);
         return result;
     }
 
     public static int[] insertElementAtIndex(int[] arr, int ind, int ele){
         if(ind < 0 || ind > arr.length) return arr;
         int[] num = new int[arr.length + 1];
-        int index = 0;
-        int i = 0;
-        while(i < arr.length){
-            if(index == ind){
-                num[index] = ele;
-            }else{
-                num[index] = arr[i];
-                i++;
-            }
-            index++;
-        }
+        System.arraycopy(arr, 0, num, 0, ind);
+        num[ind] = ele;
+        System.arraycopy(arr, ind, num, ind + 1, arr.length - ind);
         return num;
     }
 
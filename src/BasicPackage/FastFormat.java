@@ -0,0 +1,469 @@
+package BasicPackage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.IllegalFormatConversionException;
+import java.util.List;
+import java.util.Locale;
+import java.util.UnknownFormatConversionException;
+
+/*
+    Precompiled formatting (instead of String.format / printf in hot code):
+    - String.format("Age: %d", age) parses the format string on EVERY call,
+      boxes every primitive into an Integer / Double, puts them in an Object[]
+      and builds a new String
+    - FastFormat.compile(...) parses the template ONCE into a plan:
+      literal text, then a spec, then literal text, then a spec, ...
+    - A Line is a reusable char buffer: arg(int), arg(long), arg(double),
+      arg(CharSequence) write the digits / chars straight into it, nothing is
+      boxed and no String is created
+
+        FastFormat format = FastFormat.compile("Name: %s, Age: %d%n");
+        FastFormat.Line line = format.newLine();      // keep one per thread
+        line.begin().arg("Alice").arg(25).writeTo(out);
+
+    Supported (same output as String.format): %s %d %f %.Nf %n %%, with an
+    optional width and the '-' (left align) and '0' (zero pad) flags,
+    e.g. %10s %-10s %08d %8.2f
+
+    %f rounds HALF_UP like Formatter. Values where the fast path can't be sure
+    about the last digit (very close to a tie, or too big for a long) and
+    NaN / Infinity go through a java.util.Formatter instead.
+
+    Locale: the output is always the one of String.format(Locale.ROOT, ...):
+    '.' as decimal separator and ASCII digits, whatever the default locale is.
+    Where the default locale writes "3,14" (de, fr, ...) FastFormat still
+    writes "3.14", so pass Locale.ROOT to the String.format calls it replaces.
+*/
+public final class FastFormat {
+    private static final double[] POW10 = new double[16];
+    private static final long[] LONG_POW10 = new long[19];
+    static {
+        double d = 1;
+        for(int i = 0; i < POW10.length; i++){
+            POW10[i] = d;
+            d *= 10;
+        }
+        long l = 1;
+        for(int i = 0; i < LONG_POW10.length; i++){
+            LONG_POW10[i] = l;
+            l *= 10;
+        }
+    }
+
+    // literals[i] comes before specs[i], literals[specs.length] comes last
+    private final char[][] literals;
+    private final char[] conversions;
+    private final int[] widths;
+    private final int[] precisions;
+    private final boolean[] leftAlign;
+    private final boolean[] zeroPad;
+    private final String template;
+
+    private FastFormat(String template, List<char[]> literals, List<int[]> specs){
+        this.template = template;
+        this.literals = literals.toArray(new char[0][]);
+        int n = specs.size();
+        this.conversions = new char[n];
+        this.widths = new int[n];
+        this.precisions = new int[n];
+        this.leftAlign = new boolean[n];
+        this.zeroPad = new boolean[n];
+        for(int i = 0; i < n; i++){
+            int[] spec = specs.get(i);
+            conversions[i] = (char) spec[0];
+            widths[i] = spec[1];
+            precisions[i] = spec[2];
+            leftAlign[i] = spec[3] != 0;
+            zeroPad[i] = spec[4] != 0;
+        }
+    }
+
+    public static FastFormat compile(String template){
+        List<char[]> literals = new ArrayList<>();
+        List<int[]> specs = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        int n = template.length();
+        while(i < n){
+            char c = template.charAt(i++);
+            if(c != '%'){
+                literal.append(c);
+                continue;
+            }
+            boolean left = false;
+            boolean zero = false;
+            while(i < n && (template.charAt(i) == '-' || template.charAt(i) == '0')){
+                if(template.charAt(i) == '-') left = true; else zero = true;
+                i++;
+            }
+            int width = 0;
+            while(i < n && Character.isDigit(template.charAt(i))){
+                width = width * 10 + (template.charAt(i++) - '0');
+            }
+            int precision = -1;
+            if(i < n && template.charAt(i) == '.'){
+                i++;
+                precision = 0;
+                while(i < n && Character.isDigit(template.charAt(i))){
+                    precision = precision * 10 + (template.charAt(i++) - '0');
+                }
+            }
+            if(i == n){
+                throw new UnknownFormatConversionException("%");
+            }
+            char conversion = template.charAt(i++);
+            if(conversion == 'n'){
+                literal.append(System.lineSeparator());
+            }else if(conversion == '%'){
+                literal.append('%');
+            }else if(conversion == 's' || conversion == 'd' || conversion == 'f'){
+                if(left && zero || (zero || left) && width == 0 || zero && conversion == 's'){
+                    throw new IllegalArgumentException("invalid flags in " + template);
+                }
+                if(precision >= 0 && conversion != 'f'){
+                    throw new IllegalArgumentException("precision only supported for %f: " + template);
+                }
+                if(conversion == 'f' && precision < 0) precision = 6;
+                literals.add(literal.toString().toCharArray());
+                literal.setLength(0);
+                specs.add(new int[]{conversion, width, precision, left ? 1 : 0, zero ? 1 : 0});
+            }else{
+                throw new UnknownFormatConversionException(String.valueOf(conversion));
+            }
+        }
+        literals.add(literal.toString().toCharArray());
+        return new FastFormat(template, literals, specs);
+    }
+
+    public int argumentCount(){
+        return conversions.length;
+    }
+
+    public Line newLine(){
+        return new Line(this);
+    }
+
+    @Override
+    public String toString(){
+        return template;
+    }
+
+    /*
+        Reusable output buffer for one FastFormat, NOT thread-safe.
+        begin() starts a new line, then one arg(...) per spec in order.
+    */
+    public static final class Line implements CharSequence {
+        private final FastFormat format;
+        private char[] chars = new char[64];
+        private int length;
+        private int next;
+        private boolean begun;
+        // reused for writeTo(OutputStream)
+        private byte[] bytes;
+        // slow path for %f, created on first use
+        private StringBuilder slowText;
+        private Formatter slowFormatter;
+
+        private Line(FastFormat format){
+            this.format = format;
+        }
+
+        public Line begin(){
+            length = 0;
+            next = 0;
+            begun = true;
+            append(format.literals[0]);
+            return this;
+        }
+
+        public Line arg(CharSequence value){
+            int spec = spec('s', value == null ? null : String.class);
+            int start = length;
+            if(value == null){
+                append("null");
+            }else{
+                ensure(value.length());
+                for(int i = 0, n = value.length(); i < n; i++){
+                    chars[length++] = value.charAt(i);
+                }
+            }
+            return finish(spec, start);
+        }
+
+        public Line arg(Object value){
+            if(value instanceof CharSequence || value == null) return arg((CharSequence) value);
+            // boxed numbers for %d / %f are unboxed, like Formatter accepts them
+            char conversion = next < format.conversions.length ? format.conversions[next] : 's';
+            if(conversion == 'd' && (value instanceof Integer || value instanceof Long
+                    || value instanceof Short || value instanceof Byte)){
+                return arg(((Number) value).longValue());
+            }
+            if(conversion == 'f' && (value instanceof Double || value instanceof Float)){
+                return arg(((Number) value).doubleValue());
+            }
+            if(conversion != 's' && begun){
+                throw new IllegalFormatConversionException(conversion, value.getClass());
+            }
+            // not a primitive: it has to become a String anyway
+            return arg(String.valueOf(value));
+        }
+
+        public Line arg(int value){
+            return arg((long) value);
+        }
+
+        public Line arg(long value){
+            int spec = next < format.conversions.length && format.conversions[next] == 's'
+                    ? spec('s', Long.class) : spec('d', Long.class);
+            int start = length;
+            appendLong(value);
+            return finish(spec, start);
+        }
+
+        public Line arg(boolean value){
+            int spec = spec('s', Boolean.class);
+            int start = length;
+            append(value ? "true" : "false");
+            return finish(spec, start);
+        }
+
+        public Line arg(double value){
+            int spec = spec('f', Double.class);
+            int start = length;
+            if(format.conversions[spec] == 's'){
+                append(String.valueOf(value));
+            }else{
+                appendFixed(value, format.precisions[spec]);
+            }
+            return finish(spec, start);
+        }
+
+        public Line writeTo(Writer out) throws IOException {
+            checkComplete();
+            out.write(chars, 0, length);
+            return this;
+        }
+
+        // UTF-8 into a reused byte[]; works for PrintStream, FileOutputStream, ...
+        public Line writeTo(OutputStream out) throws IOException {
+            checkComplete();
+            int max = length * 3;
+            if(bytes == null || bytes.length < max){
+                bytes = new byte[Math.max(max, 256)];
+            }
+            int n = 0;
+            for(int i = 0; i < length; i++){
+                char c = chars[i];
+                if(c < 0x80){
+                    bytes[n++] = (byte) c;
+                }else if(c < 0x800){
+                    bytes[n++] = (byte) (0xC0 | (c >> 6));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                }else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])){
+                    int cp = Character.toCodePoint(c, chars[++i]);
+                    bytes[n++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (cp & 0x3F));
+                }else if(Character.isSurrogate(c)){
+                    bytes[n++] = (byte) '?';
+                }else{
+                    bytes[n++] = (byte) (0xE0 | (c >> 12));
+                    bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            out.write(bytes, 0, n);
+            return this;
+        }
+
+        public Line appendTo(StringBuilder sb){
+            checkComplete();
+            sb.append(chars, 0, length);
+            return this;
+        }
+
+        @Override
+        public int length(){
+            return length;
+        }
+
+        @Override
+        public char charAt(int index){
+            if(index < 0 || index >= length){
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+            }
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString(){
+            checkComplete();
+            return new String(chars, 0, length);
+        }
+
+        // helper functions....
+        private int spec(char conversion, Class<?> type){
+            if(next >= format.conversions.length){
+                throw new IllegalStateException("all " + format.conversions.length + " arguments of \"" + format + "\" are set");
+            }
+            if(!begun){
+                throw new IllegalStateException("call begin() first");
+            }
+            char expected = format.conversions[next];
+            if(expected != conversion && expected != 's'){
+                throw new IllegalFormatConversionException(expected, type);
+            }
+            return next;
+        }
+
+        // applies width / alignment to [start, length) and appends the next literal
+        private Line finish(int spec, int start){
+            int width = format.widths[spec];
+            int written = length - start;
+            if(written < width){
+                int pad = width - written;
+                ensure(pad);
+                if(format.leftAlign[spec]){
+                    Arrays.fill(chars, length, length + pad, ' ');
+                }else{
+                    // zero padding goes after the sign, NaN / Infinity get spaces
+                    boolean zeros = format.zeroPad[spec] && Character.isDigit(chars[length - 1]);
+                    int at = zeros && chars[start] == '-' ? start + 1 : start;
+                    System.arraycopy(chars, at, chars, at + pad, length - at);
+                    Arrays.fill(chars, at, at + pad, zeros ? '0' : ' ');
+                }
+                length += pad;
+            }
+            next++;
+            append(format.literals[next]);
+            return this;
+        }
+
+        private void checkComplete(){
+            if(next != format.conversions.length){
+                throw new IllegalStateException("argument " + (next + 1) + " of \"" + format + "\" is missing");
+            }
+        }
+
+        private void appendLong(long value){
+            if(value == Long.MIN_VALUE){
+                append("-9223372036854775808");
+                return;
+            }
+            ensure(20);
+            if(value < 0){
+                chars[length++] = '-';
+                value = -value;
+            }
+            int digits = digits(value);
+            int end = length + digits;
+            for(int i = end - 1; i >= length; i--){
+                chars[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+            length = end;
+        }
+
+        private void appendFixed(double value, int precision){
+            double abs = Math.abs(value);
+            if(precision < POW10.length && abs * POW10[precision] < 1e15){
+                double scaled = abs * POW10[precision];
+                long whole = (long) scaled;
+                double fraction = scaled - whole;
+                // the double math can be off by a few ulps: only trust it away from x.5
+                if(Math.abs(fraction - 0.5) > 1e-6 + scaled * 1e-15){
+                    long units = fraction > 0.5 ? whole + 1 : whole;
+                    ensure(24 + precision);
+                    if(Double.doubleToRawLongBits(value) < 0){
+                        chars[length++] = '-';
+                    }
+                    appendLong(units / LONG_POW10[precision]);
+                    if(precision > 0){
+                        chars[length++] = '.';
+                        long rest = units % LONG_POW10[precision];
+                        for(int i = length + precision - 1; i >= length; i--){
+                            chars[i] = (char) ('0' + rest % 10);
+                            rest /= 10;
+                        }
+                        length += precision;
+                    }
+                    return;
+                }
+            }
+            slowFixed(value, precision);
+        }
+
+        private void slowFixed(double value, int precision){
+            if(slowFormatter == null){
+                slowText = new StringBuilder();
+                slowFormatter = new Formatter(slowText, Locale.ROOT);
+            }
+            slowText.setLength(0);
+            slowFormatter.format("%." + precision + "f", value);
+            ensure(slowText.length());
+            slowText.getChars(0, slowText.length(), chars, length);
+            length += slowText.length();
+        }
+
+        private static int digits(long value){
+            int digits = 1;
+            while(digits < 19 && value >= LONG_POW10[digits]){
+                digits++;
+            }
+            return digits;
+        }
+
+        private void append(char[] text){
+            ensure(text.length);
+            System.arraycopy(text, 0, chars, length, text.length);
+            length += text.length;
+        }
+
+        private void append(String text){
+            ensure(text.length());
+            text.getChars(0, text.length(), chars, length);
+            length += text.length();
+        }
+
+        private void ensure(int extra){
+            if(length + extra > chars.length){
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + extra));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        FastFormat format = FastFormat.compile("Name: %s, Age: %d, Salary: $%.2f%n");
+        Line line = format.newLine();
+        line.begin().arg("Alice").arg(25).arg(75000.50).writeTo(System.out);
+        System.out.print(String.format(Locale.ROOT, "Name: %s, Age: %d, Salary: $%.2f%n", "Alice", 25, 75000.50));
+
+        // same line a million times: only the digits change, nothing is allocated
+        FastFormat row = FastFormat.compile("id=%08d value=%10.3f%n");
+        Line rowLine = row.newLine();
+        StringBuilder out = new StringBuilder(64 * 1_000_000);
+        long start = System.nanoTime();
+        for(int i = 0; i < 1_000_000; i++){
+            rowLine.begin().arg(i).arg(i / 7.0).appendTo(out);
+        }
+        System.out.println("FastFormat:    " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        out.setLength(0);
+        start = System.nanoTime();
+        for(int i = 0; i < 1_000_000; i++){
+            out.append(String.format(Locale.ROOT, "id=%08d value=%10.3f%n", i, i / 7.0));
+        }
+        System.out.println("String.format: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+}
@@ -0,0 +1,210 @@
+package BasicPackage;
+
+import java.util.Arrays;
+
+/*
+    Growable int list (like ArrayList<Integer> but without boxing):
+    - Java arrays have a fixed size, so ArraysClass.insertElementAtIndex has
+      to allocate a brand-new array for every single insert
+    - IntArrayList keeps a bigger backing int[] and a separate size
+    - When the backing array is full it grows by 1.5x, so n appends cost
+      O(n) in total (amortized O(1) each) instead of O(n^2)
+    - Insert / remove / concat shift elements with System.arraycopy, which
+      the JVM turns into a fast memmove
+
+    ArrayList<Integer> vs IntArrayList:
+    - ArrayList<Integer> stores references to Integer objects (16 bytes each
+      + 4-8 bytes for the reference), IntArrayList stores 4 bytes per value
+    - No boxing means no garbage for the GC to clean up
+*/
+public class IntArrayList {
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int[] EMPTY = {};
+
+    private int[] elements;
+    private int size;
+
+    public IntArrayList(){
+        this.elements = EMPTY;
+    }
+
+    public IntArrayList(int initialCapacity){
+        if(initialCapacity < 0){
+            throw new IllegalArgumentException("capacity cannot be negative: " + initialCapacity);
+        }
+        this.elements = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+    }
+
+    // copies arr, so the list and the array are independent afterwards
+    public static IntArrayList of(int... arr){
+        IntArrayList list = new IntArrayList(arr.length);
+        list.addAll(arr);
+        return list;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public int get(int index){
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public int set(int index, int value){
+        checkIndex(index);
+        int old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void add(int value){
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+    }
+
+    public void insert(int index, int value){
+        if(index < 0 || index > size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    public void addAll(int[] arr){
+        insertAll(size, arr);
+    }
+
+    public void addAll(IntArrayList other){
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.elements, 0, elements, size, other.size);
+        size += other.size;
+    }
+
+    public void insertAll(int index, int[] arr){
+        if(index < 0 || index > size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + arr.length);
+        System.arraycopy(elements, index, elements, index + arr.length, size - index);
+        System.arraycopy(arr, 0, elements, index, arr.length);
+        size += arr.length;
+    }
+
+    public int removeAt(int index){
+        checkIndex(index);
+        int old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    // removes [from, to) with one shift
+    public void removeRange(int from, int to){
+        if(from < 0 || to > size || from > to){
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") out of bounds for size " + size);
+        }
+        System.arraycopy(elements, to, elements, from, size - to);
+        size -= to - from;
+    }
+
+    public void clear(){
+        size = 0;
+    }
+
+    public void ensureCapacity(int minCapacity){
+        if(minCapacity > elements.length){
+            int newCapacity = Math.max(elements.length + (elements.length >> 1), DEFAULT_CAPACITY);
+            if(newCapacity < minCapacity) newCapacity = minCapacity;
+            elements = Arrays.copyOf(elements, newCapacity);
+        }
+    }
+
+    public void trimToSize(){
+        if(size < elements.length){
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    public int[] toArray(){
+        return Arrays.copyOf(elements, size);
+    }
+
+    // same helpers as ArraysClass, run directly on the backing array
+    public ArrayKernels.Stats stats(){
+        return ArrayKernels.stats(elements, 0, size);
+    }
+
+    public long sum(){
+        return ArrayKernels.sum(elements, 0, size);
+    }
+
+    public boolean contains(int x){
+        return indexOf(x) >= 0;
+    }
+
+    public int indexOf(int x){
+        for(int i = 0; i < size; i++){
+            if(elements[i] == x) return i;
+        }
+        return -1;
+    }
+
+    public void reverse(){
+        for(int left = 0, right = size - 1; left < right; left++, right--){
+            int temp = elements[left];
+            elements[left] = elements[right];
+            elements[right] = temp;
+        }
+    }
+
+    private void checkIndex(int index){
+        if(index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < size; i++){
+            if(i > 0) sb.append(", ");
+            sb.append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    public static void main(String[] args){
+        IntArrayList list = IntArrayList.of(1, 2, 3, 4, 5);
+        list.insert(2, 99);
+        System.out.println("After inserting 99 at index 2: " + list);
+        list.removeAt(2);
+        System.out.println("After removing index 2: " + list);
+        list.addAll(new int[]{6, 7, 8});
+        System.out.println("After concatenation: " + list);
+        System.out.println("Stats: " + list.stats());
+
+        // building 50K elements one insert at a time
+        int n = 50_000;
+        long start = System.nanoTime();
+        int[] arr = {};
+        for(int i = 0; i < n; i++){
+            arr = ArraysClass.insertElementAtIndex(arr, arr.length, i);
+        }
+        long arrays = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        IntArrayList growable = new IntArrayList();
+        for(int i = 0; i < n; i++){
+            growable.add(i);
+        }
+        long growing = System.nanoTime() - start;
+        System.out.println("copy per insert: " + arrays / 1_000_000 + "ms, IntArrayList: " + growing / 1_000_000 + "ms");
+    }
+}
@@ -0,0 +1,354 @@
+package BasicPackage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+    Off-heap int array:
+    - Normal int[] lives on the Java heap, so the GC has to manage (and may
+      copy) every byte of it. Huge arrays make GC pauses longer and need -Xmx
+      large enough to hold all the data
+    - ByteBuffer.allocateDirect() allocates memory OUTSIDE the heap. The GC only
+      sees a tiny ByteBuffer object, no matter how many bytes are behind it
+    - FileChannel.map() goes one step further: the file itself becomes the
+      memory (memory-mapped file), the OS pages data in and out on demand
+
+    Layout:
+    - One ByteBuffer can hold at most 2 GB (int index), so the data is split
+      into pages of PAGE_INTS ints and indexes are long
+    - Only the last page may be smaller: a small array gets a small buffer,
+      and the last page grows by 1.5x (copied into a bigger buffer, like
+      IntArrayList) until it is a full page, then a new page is started
+    - Reductions copy one block at a time into a small int[] and run the same
+      ArrayKernels loops used by ArraysClass
+    - Like int[], it is not thread-safe; each thread should use its own instance
+
+    Note: MemorySegment (java.lang.foreign) is still a preview API in Java 17,
+    so direct and mapped ByteBuffers are used here.
+*/
+public class OffHeapIntArray implements AutoCloseable {
+    static final int PAGE_SHIFT = 24;
+    static final int PAGE_INTS = 1 << PAGE_SHIFT;          // 16M ints = 64 MB per page
+    private static final int PAGE_MASK = PAGE_INTS - 1;
+    private static final int DEFAULT_CAPACITY = 10;
+    // ints copied to the heap per step, 64 KB stays in L2 cache
+    private static final int BLOCK = 16 * 1024;
+
+    private IntBuffer[] pages;
+    private MappedByteBuffer[] mapped;
+    private final boolean growable;
+    private final ByteOrder order;
+    private long size;
+    private final int[] block = new int[BLOCK];
+
+    private OffHeapIntArray(IntBuffer[] pages, MappedByteBuffer[] mapped, long size, boolean growable, ByteOrder order){
+        this.pages = pages;
+        this.mapped = mapped;
+        this.size = size;
+        this.growable = growable;
+        this.order = order;
+    }
+
+    // empty array backed by direct memory of initialCapacity ints, grows by 1.5x
+    public static OffHeapIntArray allocate(long initialCapacity){
+        if(initialCapacity < 0){
+            throw new IllegalArgumentException("capacity cannot be negative: " + initialCapacity);
+        }
+        OffHeapIntArray arr = new OffHeapIntArray(new IntBuffer[0], null, 0, true, ByteOrder.nativeOrder());
+        arr.ensureCapacity(initialCapacity);
+        return arr;
+    }
+
+    public static OffHeapIntArray copyOf(int[] values){
+        OffHeapIntArray arr = allocate(values.length);
+        for(int from = 0; from < values.length; from += BLOCK){
+            int len = Math.min(BLOCK, values.length - from);
+            arr.pages[pageOf(from)].put(offsetOf(from), values, from, len);
+        }
+        arr.size = values.length;
+        return arr;
+    }
+
+    // maps a file of 4-byte ints (big-endian, as written by DataOutputStream)
+    public static OffHeapIntArray map(Path file, boolean writable) throws IOException {
+        return map(file, writable, ByteOrder.BIG_ENDIAN);
+    }
+
+    public static OffHeapIntArray map(Path file, boolean writable, ByteOrder order) throws IOException {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        try(FileChannel channel = FileChannel.open(file, options)){
+            long bytes = channel.size();
+            if(bytes % Integer.BYTES != 0){
+                throw new IOException(file + " is " + bytes + " bytes, not a whole number of ints");
+            }
+            long length = bytes / Integer.BYTES;
+            int pageCount = (int) ((length + PAGE_INTS - 1) >>> PAGE_SHIFT);
+            IntBuffer[] pages = new IntBuffer[pageCount];
+            MappedByteBuffer[] mapped = new MappedByteBuffer[pageCount];
+            FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            for(int p = 0; p < pageCount; p++){
+                long firstInt = (long) p << PAGE_SHIFT;
+                long ints = Math.min(PAGE_INTS, length - firstInt);
+                // the mapping stays valid after the channel is closed
+                mapped[p] = channel.map(mode, firstInt * Integer.BYTES, ints * Integer.BYTES);
+                pages[p] = mapped[p].order(order).asIntBuffer();
+            }
+            return new OffHeapIntArray(pages, mapped, length, false, order);
+        }
+    }
+
+    public long size(){
+        return size;
+    }
+
+    public long capacity(){
+        if(!growable) return size;
+        if(pages.length == 0) return 0;
+        return ((long) (pages.length - 1) << PAGE_SHIFT) + pages[pages.length - 1].capacity();
+    }
+
+    public int get(long index){
+        checkIndex(index);
+        return pages[pageOf(index)].get(offsetOf(index));
+    }
+
+    public void set(long index, int value){
+        checkIndex(index);
+        pages[pageOf(index)].put(offsetOf(index), value);
+    }
+
+    public void add(int value){
+        insert(size, value);
+    }
+
+    public void insert(long index, int value){
+        if(index < 0 || index > size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        // shift [index, size) one to the right, last block first
+        moveRight(index, size);
+        size++;
+        pages[pageOf(index)].put(offsetOf(index), value);
+    }
+
+    public int remove(long index){
+        checkIndex(index);
+        int old = get(index);
+        moveLeft(index + 1, size);
+        size--;
+        return old;
+    }
+
+    public long sum(){
+        long sum = 0;
+        for(long from = 0; from < size; from += BLOCK){
+            int len = load(from);
+            sum += ArrayKernels.sum(block, 0, len);
+        }
+        return sum;
+    }
+
+    public int max(){
+        int max = Integer.MIN_VALUE;
+        for(long from = 0; from < size; from += BLOCK){
+            int len = load(from);
+            max = Math.max(max, ArrayKernels.max(block, 0, len));
+        }
+        return max;
+    }
+
+    public int min(){
+        int min = Integer.MAX_VALUE;
+        for(long from = 0; from < size; from += BLOCK){
+            int len = load(from);
+            min = Math.min(min, ArrayKernels.min(block, 0, len));
+        }
+        return min;
+    }
+
+    // both indexes are always in range, so swap on the pages without checkIndex
+    public void reverse(){
+        for(long left = 0, right = size - 1; left < right; left++, right--){
+            IntBuffer leftPage = pages[pageOf(left)];
+            IntBuffer rightPage = pages[pageOf(right)];
+            int temp = leftPage.get(offsetOf(left));
+            leftPage.put(offsetOf(left), rightPage.get(offsetOf(right)));
+            rightPage.put(offsetOf(right), temp);
+        }
+    }
+
+    // linear search, -1 if missing
+    public long indexOf(int x){
+        for(long from = 0; from < size; from += BLOCK){
+            int len = load(from);
+            for(int i = 0; i < len; i++){
+                if(block[i] == x) return from + i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int x){
+        return indexOf(x) >= 0;
+    }
+
+    // values must be sorted, -1 if missing
+    public long binarySearch(int x){
+        long low = 0, high = size - 1;
+        while(low <= high){
+            long mid = (low + high) >>> 1;
+            int value = pages[pageOf(mid)].get(offsetOf(mid));
+            if(value == x) return mid;
+            else if(value > x) high = mid - 1;
+            else low = mid + 1;
+        }
+        return -1;
+    }
+
+    public int[] toArray(){
+        if(size > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("too many elements for an int[]: " + size);
+        }
+        int[] result = new int[(int) size];
+        for(long from = 0; from < size; from += BLOCK){
+            int len = load(from);
+            System.arraycopy(block, 0, result, (int) from, len);
+        }
+        return result;
+    }
+
+    // writes mapped pages back to the file
+    public void force(){
+        if(mapped != null){
+            for(MappedByteBuffer buffer: mapped){
+                buffer.force();
+            }
+        }
+    }
+
+    @Override
+    public void close(){
+        force();
+        // direct memory is released once the buffers become unreachable
+        pages = new IntBuffer[0];
+        mapped = null;
+        size = 0;
+    }
+
+    // helper functions....
+    private static int pageOf(long index){
+        return (int) (index >>> PAGE_SHIFT);
+    }
+
+    private static int offsetOf(long index){
+        return (int) (index & PAGE_MASK);
+    }
+
+    private void checkIndex(long index){
+        if(index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void ensureCapacity(long minCapacity){
+        long capacity = capacity();
+        if(minCapacity <= capacity) return;
+        if(!growable){
+            throw new IllegalStateException("memory-mapped array cannot grow beyond " + size + " ints");
+        }
+        long newCapacity = Math.max(capacity + (capacity >> 1), DEFAULT_CAPACITY);
+        if(newCapacity < minCapacity) newCapacity = minCapacity;
+        // full pages are only added when needed, 1.5x never adds a page on its own
+        int pageCount = (int) ((minCapacity + PAGE_INTS - 1) >>> PAGE_SHIFT);
+        newCapacity = Math.min(newCapacity, (long) pageCount << PAGE_SHIFT);
+        IntBuffer[] grown = Arrays.copyOf(pages, pageCount);
+        for(int p = Math.max(0, pages.length - 1); p < pageCount; p++){
+            int ints = (int) Math.min(PAGE_INTS, newCapacity - ((long) p << PAGE_SHIFT));
+            if(grown[p] != null && grown[p].capacity() >= ints) continue;
+            IntBuffer page = ByteBuffer.allocateDirect(ints * Integer.BYTES).order(order).asIntBuffer();
+            if(grown[p] != null){
+                page.put(0, grown[p], 0, grown[p].capacity());
+            }
+            grown[p] = page;
+        }
+        pages = grown;
+    }
+
+    // copies up to BLOCK ints starting at from into block, never across a page
+    private int load(long from){
+        int len = (int) Math.min(Math.min(BLOCK, size - from), PAGE_INTS - offsetOf(from));
+        pages[pageOf(from)].get(offsetOf(from), block, 0, len);
+        return len;
+    }
+
+    private void store(long to, int len){
+        int first = Math.min(len, PAGE_INTS - offsetOf(to));
+        pages[pageOf(to)].put(offsetOf(to), block, 0, first);
+        if(first < len){
+            pages[pageOf(to + first)].put(0, block, first, len - first);
+        }
+    }
+
+    // [from, to) -> [from + 1, to + 1)
+    private void moveRight(long from, long to){
+        long end = to;
+        while(end > from){
+            long start = Math.max(from, end - BLOCK);
+            // keep each load inside a single page
+            start = Math.max(start, end - 1 - offsetOf(end - 1));
+            int len = (int) (end - start);
+            pages[pageOf(start)].get(offsetOf(start), block, 0, len);
+            store(start + 1, len);
+            end = start;
+        }
+    }
+
+    // [from, to) -> [from - 1, to - 1)
+    private void moveLeft(long from, long to){
+        long start = from;
+        while(start < to){
+            int len = (int) Math.min(Math.min(BLOCK, to - start), PAGE_INTS - offsetOf(start));
+            pages[pageOf(start)].get(offsetOf(start), block, 0, len);
+            store(start - 1, len);
+            start += len;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] testArray = {10, 5, 8, 3, 9, 1, 7};
+        try(OffHeapIntArray arr = OffHeapIntArray.copyOf(testArray)){
+            System.out.println("sum: " + arr.sum() + ", min: " + arr.min() + ", max: " + arr.max());
+            arr.insert(2, 99);
+            arr.remove(0);
+            arr.reverse();
+            System.out.println("after insert/remove/reverse: " + Arrays.toString(arr.toArray()));
+            System.out.println("index of 99: " + arr.indexOf(99));
+        }
+
+        // write a binary int file and map it back without loading it on the heap
+        Path file = Path.of("ints.bin");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile())))){
+            for(int i = 0; i < 1_000_000; i++){
+                out.writeInt(i);
+            }
+        }
+        try(OffHeapIntArray mappedArr = OffHeapIntArray.map(file, false)){
+            System.out.println("mapped " + mappedArr.size() + " ints, sum: " + mappedArr.sum()
+                    + ", binarySearch(123456): " + mappedArr.binarySearch(123456));
+        }
+        file.toFile().delete();
+    }
+}
@@ -0,0 +1,214 @@
+package BasicPackage;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    Parallel Array Reductions (Fork/Join):
+    - ForkJoinPool runs small tasks on a fixed set of worker threads (one per core)
+    - RecursiveTask splits the array in half until a piece is small enough,
+      solves the pieces, then joins (combines) the partial results
+    - Idle workers "steal" pieces from busy workers, so all cores stay busy
+
+    Chunk size:
+    - A leaf works on CHUNK ints = 128 KB, which fits in a core's L2 cache
+    - Smaller leaves spend more time on task bookkeeping than on adding numbers
+
+    Serial fallback:
+    - Starting tasks costs a few microseconds, so small arrays are faster on
+      one thread. Below SERIAL_THRESHOLD we call ArrayKernels directly.
+    - SERIAL_THRESHOLD comes from ParallelArraysBenchmark (benchmarks module):
+          java -jar benchmarks/target/benchmarks.jar ParallelArraysBenchmark
+      it belongs at the smallest size where "forked" beats "serial".
+      The only measurement so far is from a 1-core machine (us per sum):
+          size      32K    128K   256K   512K   1M     4M     16M
+          serial    9.3    59     70     137    245    1532   8190
+          forked    13.6   49     92     157    353    1676   9688
+      forked never wins there, so until it is measured on a multi-core
+      machine SERIAL_THRESHOLD is Integer.MAX_VALUE: every call stays serial.
+      main() below prints a rough version of the same comparison.
+    - With a single worker thread there is nothing to gain, so we stay serial.
+
+    containsElement:
+    - All tasks share one AtomicBoolean. The first worker that finds the value
+      sets it, and every other leaf checks it before (and while) scanning, so
+      the remaining work is skipped.
+*/
+public class ParallelArrays {
+    static final int CHUNK = 32 * 1024;
+    // not tuned on a multi-core machine yet: always serial, see "Serial fallback" above
+    static final int SERIAL_THRESHOLD = Integer.MAX_VALUE;
+
+    private ParallelArrays(){}
+
+    public static long calculateSum(int[] arr){
+        return calculateSum(arr, ForkJoinPool.commonPool());
+    }
+
+    public static long calculateSum(int[] arr, ForkJoinPool pool){
+        if(serial(arr, pool)) return ArrayKernels.sum(arr);
+        return pool.invoke(new SumTask(arr, 0, arr.length));
+    }
+
+    // unlike ArraysClass.calculateAverage this does not truncate to int
+    public static double calculateAverage(int[] arr){
+        if(arr.length == 0) throw new ArithmeticException("average of empty array");
+        return (double) calculateSum(arr) / arr.length;
+    }
+
+    public static int findMax(int[] arr){
+        return stats(arr).max;
+    }
+
+    public static int findMin(int[] arr){
+        return stats(arr).min;
+    }
+
+    public static ArrayKernels.Stats stats(int[] arr){
+        return stats(arr, ForkJoinPool.commonPool());
+    }
+
+    public static ArrayKernels.Stats stats(int[] arr, ForkJoinPool pool){
+        if(serial(arr, pool)) return ArrayKernels.stats(arr);
+        return pool.invoke(new StatsTask(arr, 0, arr.length));
+    }
+
+    public static boolean containsElement(int[] arr, int x){
+        return containsElement(arr, x, ForkJoinPool.commonPool());
+    }
+
+    public static boolean containsElement(int[] arr, int x, ForkJoinPool pool){
+        if(serial(arr, pool)) return ArraysClass.containsElement(arr, x);
+        AtomicBoolean found = new AtomicBoolean();
+        pool.invoke(new ContainsTask(arr, 0, arr.length, x, found));
+        return found.get();
+    }
+
+    // always forks, whatever the size: what SERIAL_THRESHOLD is measured against
+    static long forkedSum(int[] arr, ForkJoinPool pool){
+        return pool.invoke(new SumTask(arr, 0, arr.length));
+    }
+
+    private static boolean serial(int[] arr, ForkJoinPool pool){
+        return arr.length < SERIAL_THRESHOLD || pool.getParallelism() < 2;
+    }
+
+    // helper tasks....
+    private static final class SumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int from, to;
+
+        SumTask(int[] arr, int from, int to){
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute(){
+            if(to - from <= CHUNK) return ArrayKernels.sum(arr, from, to);
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(arr, from, mid);
+            left.fork();
+            long right = new SumTask(arr, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    private static final class StatsTask extends RecursiveTask<ArrayKernels.Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int from, to;
+
+        StatsTask(int[] arr, int from, int to){
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ArrayKernels.Stats compute(){
+            if(to - from <= CHUNK) return ArrayKernels.stats(arr, from, to);
+            int mid = (from + to) >>> 1;
+            StatsTask left = new StatsTask(arr, from, mid);
+            left.fork();
+            ArrayKernels.Stats r = new StatsTask(arr, mid, to).compute();
+            ArrayKernels.Stats l = left.join();
+            return new ArrayKernels.Stats(Math.min(l.min, r.min), Math.max(l.max, r.max),
+                    l.sum + r.sum, l.count + r.count);
+        }
+    }
+
+    private static final class ContainsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // how often a leaf re-checks the shared flag while scanning
+        private static final int CHECK_EVERY = 4096;
+
+        private final int[] arr;
+        private final int from, to, x;
+        private final AtomicBoolean found;
+
+        ContainsTask(int[] arr, int from, int to, int x, AtomicBoolean found){
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+            this.x = x;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute(){
+            if(found.get()) return;
+            if(to - from <= CHUNK){
+                for(int start = from; start < to; start += CHECK_EVERY){
+                    if(found.get()) return;
+                    int end = Math.min(to, start + CHECK_EVERY);
+                    for(int i = start; i < end; i++){
+                        if(arr[i] == x){
+                            found.set(true);
+                            return;
+                        }
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ContainsTask left = new ContainsTask(arr, from, mid, x, found);
+            left.fork();
+            new ContainsTask(arr, mid, to, x, found).compute();
+            left.join();
+        }
+    }
+
+    // measures serial vs parallel sum for growing sizes to pick SERIAL_THRESHOLD
+    public static void main(String[] args){
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for(int size = 16 * 1024; size <= 16 * 1024 * 1024; size *= 2){
+            int[] data = new int[size];
+            for(int i = 0; i < size; i++){
+                data[i] = i % 1000;
+            }
+
+            long serial = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+            long check = 0;
+            for(int round = 0; round < 50; round++){
+                long t0 = System.nanoTime();
+                check += ArrayKernels.sum(data);
+                long t1 = System.nanoTime();
+                check -= forkedSum(data, pool);
+                long t2 = System.nanoTime();
+                serial = Math.min(serial, t1 - t0);
+                parallel = Math.min(parallel, t2 - t1);
+            }
+            if(check != 0) throw new IllegalStateException("serial and parallel sums differ");
+            System.out.printf("size %9d: serial %7dus, parallel %7dus%n", size, serial / 1000, parallel / 1000);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package BasicPackage;
+
+import java.util.Arrays;
+
+/*
+    Sorted Index (build once, search many times):
+    - Binary search needs a sorted array, but sorting on every lookup costs
+      O(n log n) and changes the caller's array
+    - SortedIndex copies the values once, sorts the copy, and then answers
+      any number of lookups in O(log n) without allocating anything
+    - indexOf returns the position in the ORIGINAL array (first occurrence),
+      so the caller's array is never touched
+
+    Eytzinger layout:
+    - A normal sorted array puts the first few probes of a binary search far
+      apart in memory, so every probe on a huge array is a cache miss
+    - Eytzinger stores the sorted values in BFS order of the search tree:
+      root at [1], its children at [2] and [3], their children at [4..7] ...
+    - The top levels of the tree end up next to each other in a few cache
+      lines, and each step is k = 2k + (value < x), with no unpredictable branch
+*/
+public class SortedIndex {
+    // tree[1..n] in Eytzinger order, tree[0] unused
+    private final int[] tree;
+    // position in the original array for each tree slot
+    private final int[] origin;
+    private final int size;
+
+    public SortedIndex(int[] arr){
+        size = arr.length;
+        // sort (value, original index) pairs packed in one long so equal
+        // values keep the smallest original index first
+        long[] pairs = new long[size];
+        for(int i = 0; i < size; i++){
+            pairs[i] = ((long) arr[i] << 32) | i;
+        }
+        Arrays.sort(pairs);
+
+        tree = new int[size + 1];
+        origin = new int[size + 1];
+        fill(pairs, 0, 1);
+    }
+
+    // in-order walk of the implicit tree places the sorted values
+    private int fill(long[] pairs, int next, int k){
+        if(k <= size){
+            next = fill(pairs, next, 2 * k);
+            tree[k] = (int) (pairs[next] >> 32);
+            origin[k] = (int) pairs[next];
+            next++;
+            next = fill(pairs, next, 2 * k + 1);
+        }
+        return next;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // index of x in the original array, -1 if missing
+    public int indexOf(int x){
+        int k = lowerBound(x);
+        return k != 0 && tree[k] == x ? origin[k] : -1;
+    }
+
+    public boolean contains(int x){
+        int k = lowerBound(x);
+        return k != 0 && tree[k] == x;
+    }
+
+    // tree slot of the first value >= x, 0 if every value is smaller
+    private int lowerBound(int x){
+        int k = 1;
+        while(k <= size){
+            k = 2 * k + (tree[k] < x ? 1 : 0);
+        }
+        // undo the right turns taken after the last left turn
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    public static void main(String[] args){
+        int[] testArray = {10, 5, 8, 3, 9, 1, 7};
+        SortedIndex index = new SortedIndex(testArray);
+        System.out.println("Array: " + Arrays.toString(testArray));
+        for(int x: new int[]{1, 5, 10, 4}){
+            System.out.println("indexOf(" + x + "): " + index.indexOf(x));
+        }
+        System.out.println("Array unchanged: " + Arrays.toString(testArray));
+
+        int[] large = new int[10_000_000];
+        for(int i = 0; i < large.length; i++){
+            large[i] = (int) ((i * 2654435761L) % 100_000_000);
+        }
+        SortedIndex largeIndex = new SortedIndex(large);
+        int[] sorted = large.clone();
+        Arrays.sort(sorted);
+
+        int hits = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < 5_000_000; i++){
+            if(largeIndex.contains(i * 20)) hits++;
+        }
+        long eytzinger = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int i = 0; i < 5_000_000; i++){
+            if(ArraysClass.findIndexSorted(sorted, i * 20) >= 0) hits--;
+        }
+        long classic = System.nanoTime() - start;
+        System.out.println("hits balance (should be 0): " + hits);
+        System.out.println("eytzinger: " + eytzinger / 1_000_000 + "ms, sorted array: " + classic / 1_000_000 + "ms");
+    }
+}
@@ -333,6 +333,16 @@ public class StringClass {
         System.out.printf("Right aligned: '%10s'%n", "Java");
         System.out.printf("Left aligned: '%-10s'%n", "Java");
         System.out.printf("Zero padded: '%08d'%n", 42);
+
+        // Precompiled format (FastFormat)
+        // String.format / printf parse the format string and box age and salary
+        // on EVERY call; in a loop, compile the template once and reuse a Line
+        FastFormat employee = FastFormat.compile("Name: %s, Age: %d, Salary: $%.2f");
+        FastFormat.Line line = employee.newLine();
+        for(int i = 0; i < 3; i++){
+            line.begin().arg(name).arg(age + i).arg(salary * (1 + i / 10.0));
+            System.out.println("FastFormat: " + line);
+        }
     }
 }
 
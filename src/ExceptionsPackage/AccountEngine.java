@@ -0,0 +1,255 @@
+package ExceptionsPackage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Many threads, many accounts:
+    - BankAccount does "balance -= amount" on a plain float: two threads can
+      read the same old balance and one update is lost; a float also can't
+      hold 0.10 exactly, so cents slowly drift
+    - AccountEngine keeps every balance as a long of minor units (cents) in one
+      long[]; a deposit or withdraw is a compare-and-set (CAS) loop through a
+      VarHandle: read, compute, write only if nobody changed it meanwhile,
+      otherwise retry. No lock, no lost update.
+    - a transfer touches two accounts; its lock is one of a fixed set of
+      stripes (account % stripes), so unrelated transfers run in parallel
+    - deadlock: thread 1 locks A then waits for B while thread 2 locks B then
+      waits for A. Both stripes are always taken lowest index first, so no
+      such cycle can form.
+    - each balance sits on its own cache line (64 bytes), threads updating
+      neighbouring accounts don't slow each other down (false sharing)
+    - open() first claims a slot, writes its balance, and only then publishes
+      the account number (in order), so no deposit can reach an account whose
+      initial balance is still to be written
+
+    Same rules as BankAccount: withdraw more than the balance -> Exception,
+    deposit more than 2000.00 at once -> BalanceOverflow.
+*/
+public class AccountEngine {
+    static final long MAX_DEPOSIT = 2000_00;
+    // half of Long.MAX_VALUE: a refund after a failed credit can never overflow
+    static final long MAX_BALANCE = Long.MAX_VALUE / 2;
+
+    // 8 longs = 64 bytes, one balance per cache line
+    private static final int STRIDE = 8;
+    private static final VarHandle BALANCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] balances;
+    private final int capacity;
+    // slots handed out by open() / accounts whose balance is written
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger published = new AtomicInteger();
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+
+    public AccountEngine(int capacity){
+        this(capacity, 64);
+    }
+
+    // stripes is rounded up to a power of two
+    public AccountEngine(int capacity, int stripes){
+        if(capacity <= 0 || stripes <= 0){
+            throw new IllegalArgumentException("capacity and stripes must be positive");
+        }
+        this.capacity = capacity;
+        this.balances = new long[capacity * STRIDE];
+        int count = Integer.highestOneBit(stripes);
+        if(count < stripes) count <<= 1;
+        this.stripes = new ReentrantLock[count];
+        for(int i = 0; i < count; i++){
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    // returns the new account number
+    public int open(long initialMinor){
+        if(initialMinor < 0 || initialMinor > MAX_BALANCE){
+            throw new IllegalArgumentException("bad initial balance: " + initialMinor);
+        }
+        int account;
+        do{
+            account = claimed.get();
+            if(account >= capacity){
+                throw new IllegalStateException("engine is full: " + capacity + " accounts");
+            }
+        }while(!claimed.compareAndSet(account, account + 1));
+        BALANCE.setVolatile(balances, account * STRIDE, initialMinor);
+        // accounts are published in order: wait for earlier open() calls to publish theirs
+        while(!published.compareAndSet(account, account + 1)){
+            Thread.onSpinWait();
+        }
+        return account;
+    }
+
+    public int accounts(){
+        return published.get();
+    }
+
+    public long balance(int account){
+        return (long) BALANCE.getVolatile(balances, index(account));
+    }
+
+    // returns the new balance
+    public long deposit(int account, long minor) throws BalanceOverflow {
+        checkAmount(minor);
+        if(minor > MAX_DEPOSIT){
+            throw new BalanceOverflow("Balance overflow error", toMajor(balance(account)));
+        }
+        int i = index(account);
+        while(true){
+            long current = (long) BALANCE.getVolatile(balances, i);
+            if(current > MAX_BALANCE - minor){
+                throw new BalanceOverflow("Balance overflow error", toMajor(current));
+            }
+            long next = current + minor;
+            if(BALANCE.compareAndSet(balances, i, current, next)) return next;
+            Thread.onSpinWait();
+        }
+    }
+
+    // returns the new balance
+    public long withdraw(int account, long minor) throws Exception {
+        checkAmount(minor);
+        long next = debit(index(account), minor);
+        if(next < 0){
+            throw new Exception("Insufficient Balance");
+        }
+        return next;
+    }
+
+    // both accounts change, or neither does
+    public void transfer(int from, int to, long minor) throws Exception {
+        checkAmount(minor);
+        if(from == to){
+            throw new IllegalArgumentException("transfer to the same account: " + from);
+        }
+        int fromIndex = index(from);
+        int toIndex = index(to);
+        ReentrantLock first = stripes[Math.min(from & stripeMask, to & stripeMask)];
+        ReentrantLock second = stripes[Math.max(from & stripeMask, to & stripeMask)];
+        first.lock();
+        if(second != first) second.lock();
+        try{
+            if(debit(fromIndex, minor) < 0){
+                throw new Exception("Insufficient Balance");
+            }
+            if(!credit(toIndex, minor)){
+                BALANCE.getAndAdd(balances, fromIndex, minor);
+                throw new BalanceOverflow("Balance overflow error", toMajor(balance(to)));
+            }
+        }finally {
+            if(second != first) second.unlock();
+            first.unlock();
+        }
+    }
+
+    // sum of all balances with every stripe held: no transfer is half done.
+    // Deposits and withdrawals don't take the stripes, so ones running at the
+    // same time may or may not be counted; only transfers are excluded
+    public long totalBalance(){
+        for(ReentrantLock stripe: stripes){
+            stripe.lock();
+        }
+        try{
+            long total = 0;
+            int count = accounts();
+            for(int account = 0; account < count; account++){
+                total += (long) BALANCE.getVolatile(balances, account * STRIDE);
+            }
+            return total;
+        }finally {
+            for(int i = stripes.length - 1; i >= 0; i--){
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    public static long toMinor(float amount){
+        return Math.round(amount * 100.0);
+    }
+
+    public static float toMajor(long minor){
+        return minor / 100.0f;
+    }
+
+    // helper functions....
+    private int index(int account){
+        if(account < 0 || account >= accounts()){
+            throw new IllegalArgumentException("no such account: " + account);
+        }
+        return account * STRIDE;
+    }
+
+    private static void checkAmount(long minor){
+        if(minor <= 0){
+            throw new IllegalArgumentException("amount must be positive: " + minor);
+        }
+    }
+
+    // new balance, or -1 when there is not enough money (nothing changed then)
+    private long debit(int i, long minor){
+        while(true){
+            long current = (long) BALANCE.getVolatile(balances, i);
+            if(current < minor) return -1;
+            long next = current - minor;
+            if(BALANCE.compareAndSet(balances, i, current, next)) return next;
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean credit(int i, long minor){
+        while(true){
+            long current = (long) BALANCE.getVolatile(balances, i);
+            if(current > MAX_BALANCE - minor) return false;
+            if(BALANCE.compareAndSet(balances, i, current, current + minor)) return true;
+            Thread.onSpinWait();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // the plain BankAccount loses updates when 8 threads deposit at once
+        BankAccount plain = new BankAccount(0);
+        AccountEngine engine = new AccountEngine(16);
+        int account = engine.open(0);
+        int savings = engine.open(toMinor(500.00f));
+
+        Thread[] threads = new Thread[8];
+        for(int t = 0; t < threads.length; t++){
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < 100_000; i++){
+                    plain.balance += 0.01f;
+                    try{
+                        engine.deposit(account, 1);
+                        engine.transfer(savings, account, 1);
+                        engine.transfer(account, savings, 1);
+                    }catch (Exception e){
+                        System.out.println("unexpected: " + e.getMessage());
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread: threads){
+            thread.join();
+        }
+        System.out.println("expected:    8000.00");
+        System.out.println("BankAccount: " + plain.balance);
+        System.out.println("engine:      " + toMajor(engine.balance(account)));
+        System.out.println("savings:     " + toMajor(engine.balance(savings)) + ", total " + toMajor(engine.totalBalance()));
+
+        try{
+            engine.transfer(account, savings, toMinor(1_000_000f));
+        }catch (Exception e){
+            System.out.println("Banking error: " + e.getMessage());
+        }
+        try{
+            engine.deposit(account, toMinor(3000f));
+        }catch (BalanceOverflow e){
+            System.out.println(e.getMessage() + ", available " + e.getAvailableBalance());
+        }
+    }
+}
@@ -8,6 +8,17 @@ public class BalanceOverflow extends Exception{
         this.availableBalance = balance;
     }
 
+    // no stack trace: nothing to walk when it is created, for callers that
+    // reject often but still want an exception (getStackTrace() is empty)
+    private BalanceOverflow(String msg, float balance, boolean writableStackTrace){
+        super(msg, null, false, writableStackTrace);
+        this.availableBalance = balance;
+    }
+
+    public static BalanceOverflow withoutStackTrace(String msg, float balance){
+        return new BalanceOverflow(msg, balance, false);
+    }
+
     public float getAvailableBalance(){
         return availableBalance;
     }
@@ -18,21 +18,38 @@ public class BankAccount {
     // - Cleaner approach: use RuntimeException
     // - Now the caller can still use try–catch, but you don’t need throws in the method signature.
     public void withdraw(float amount) throws Exception{
-        if(balance >= amount){
-            balance -= amount;
-            System.out.println("Withdraw successful. Remaining balance: " + balance);
-        }else{
+        if(tryWithdraw(amount) == Outcome.INSUFFICIENT_BALANCE){
             throw new Exception("Insufficient Balance");
         }
     }
 
     public void deposit(float amount) throws BalanceOverflow{
+        if(tryDeposit(amount) == Outcome.BALANCE_OVERFLOW){
+            throw new BalanceOverflow("Balance overflow error", balance);
+        }
+    }
+
+    // Rejections without exceptions:
+    // - new Exception(...) walks the whole call stack to fill in the stack trace,
+    //   that is most of the cost of a rejected withdraw / deposit
+    // - when rejections are normal traffic, return what happened instead;
+    //   the enum constants already exist, so nothing is allocated
+    public enum Outcome { ACCEPTED, INSUFFICIENT_BALANCE, BALANCE_OVERFLOW }
+
+    public Outcome tryWithdraw(float amount){
+        if(balance >= amount){
+            balance -= amount;
+            return Outcome.ACCEPTED;
+        }
+        return Outcome.INSUFFICIENT_BALANCE;
+    }
+
+    public Outcome tryDeposit(float amount){
         if(amount <= 2000.00){
             balance += amount;
-            System.out.println("Deposit successful. Remaining balance: " + balance);
-        }else{
-            throw new BalanceOverflow("Balance overflow error", balance);
+            return Outcome.ACCEPTED;
         }
+        return Outcome.BALANCE_OVERFLOW;
     }
 }
 
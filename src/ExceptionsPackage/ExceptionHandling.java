@@ -170,7 +170,9 @@ public class ExceptionHandling {
         BankAccount account = new BankAccount(1000.0f);
         try{
             account.withdraw(200);
+            System.out.println("Withdraw successful. Remaining balance: " + account.balance);
             account.withdraw(1000);
+            System.out.println("Withdraw successful. Remaining balance: " + account.balance);
         }catch(Exception e){
             System.out.println("Banking error: " + e.getMessage());
         }
@@ -181,7 +183,9 @@ public class ExceptionHandling {
         try{
             BankAccount account = new BankAccount(1000);
             account.deposit(2000);
+            System.out.println("Deposit successful. Remaining balance: " + account.balance);
             account.deposit(3000);
+            System.out.println("Deposit successful. Remaining balance: " + account.balance);
         } catch (BalanceOverflow e) {
             System.out.println(e.getMessage());
             System.out.println(e.getAvailableBalance());
@@ -189,6 +193,25 @@ public class ExceptionHandling {
     }
 
 
+    public static void outcomeInsteadOfException(){
+        BankAccount account = new BankAccount(1000);
+        // rejection is just a value: no stack trace, no allocation
+        for(float amount: new float[]{200, 5000, 300}){
+            BankAccount.Outcome outcome = account.tryWithdraw(amount);
+            System.out.println("withdraw " + amount + ": " + outcome + ", balance " + account.balance);
+        }
+
+        // still want an exception? one without a stack trace is cheap to create
+        try{
+            if(account.tryDeposit(3000) == BankAccount.Outcome.BALANCE_OVERFLOW){
+                throw BalanceOverflow.withoutStackTrace("Balance overflow error", account.balance);
+            }
+        }catch (BalanceOverflow e){
+            System.out.println(e.getMessage() + ", stack frames: " + e.getStackTrace().length);
+        }
+    }
+
+
 
     // helper functions....
     public static void validateAge(int age){
@@ -238,6 +261,10 @@ public class ExceptionHandling {
         // 7. Custom Exception
         System.out.println("5. Custom Exception");
         customException();
+
+        // 8. Outcome instead of Exception
+        System.out.println("8. Outcome instead of Exception");
+        outcomeInsteadOfException();
     }
 }
 
@@ -0,0 +1,559 @@
+package ExceptionsPackage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+    Posting many transactions at once:
+    - BankAccount applies every deposit / withdraw on its own, one call and one
+      balance check per transaction, and a failed one costs an exception
+    - a Ledger takes a Batch of postings (account, +/- amount in minor units)
+      and goes over it ONCE: every posting is applied to the long[] of
+      balances while it is checked; if one would make a balance negative (or
+      overflow), the postings already applied are undone in reverse order
+    - so a batch is applied completely or not at all (atomic), and the
+      rejection is an Outcome + the index of the posting, not an exception
+    - postings in a batch apply in order: a transfer is a withdraw from one
+      account followed by a deposit to another
+
+    Journal (append-only):
+    - an accepted batch becomes one frame at the end of the journal file:
+
+        frame   = [int payloadBytes][payload][int CRC32C of payload]
+        payload = [long batchNumber][int count][count x (int account, long amount)]
+
+    - frames are collected in a 1 MB buffer and written with one write() when
+      it is full, on flush() or sync(); sync() also fsyncs. Batches after the
+      last sync() can be lost in a crash, never half of one.
+
+    Snapshots:
+    - every snapshotEvery batches all balances are written to
+      snapshot-<batch>.bin (to a temp file first, then renamed) and a new
+      journal file journal-<next batch>.log is started; old journal files
+      are kept
+    - open() loads the newest snapshot and replays only the journal written
+      after it, so a restart reads one snapshot + at most snapshotEvery
+      batches, however long the history is
+    - a half-written frame at the end of the last journal file (crash) is cut off
+    - a snapshot that fails inside post() does not fail the post: the batch is
+      accepted and journaled already, so post() still returns ACCEPTED and the
+      snapshot is tried again on the next post (see snapshotFailure())
+
+    One thread posts at a time (post() is synchronized).
+*/
+public class Ledger implements AutoCloseable {
+    static final int DEFAULT_SNAPSHOT_EVERY = 100_000;
+    static final int BUFFER_BYTES = 1 << 20;
+    static final int POSTING_BYTES = Integer.BYTES + Long.BYTES;
+    static final int PAYLOAD_HEADER_BYTES = Long.BYTES + Integer.BYTES;
+    static final long MAX_BALANCE = Long.MAX_VALUE / 2;
+    static final String JOURNAL_PREFIX = "journal-";
+    static final String JOURNAL_SUFFIX = ".log";
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".bin";
+
+    // postings to apply together; reuse it with clear() to avoid garbage
+    public static final class Batch {
+        private int[] accounts;
+        private long[] amounts;
+        private int size;
+        private int failedAt = -1;
+
+        public Batch(int capacity){
+            accounts = new int[Math.max(1, capacity)];
+            amounts = new long[accounts.length];
+        }
+
+        public Batch deposit(int account, long minor){
+            return add(account, checkAmount(minor));
+        }
+
+        public Batch withdraw(int account, long minor){
+            return add(account, -checkAmount(minor));
+        }
+
+        public Batch transfer(int from, int to, long minor){
+            checkAmount(minor);
+            add(from, -minor);
+            return add(to, minor);
+        }
+
+        public Batch clear(){
+            size = 0;
+            failedAt = -1;
+            return this;
+        }
+
+        public int size(){
+            return size;
+        }
+
+        // the posting that made post() reject the batch, -1 when accepted
+        public int failedAt(){
+            return failedAt;
+        }
+
+        private Batch add(int account, long amount){
+            if(size == accounts.length){
+                accounts = Arrays.copyOf(accounts, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            accounts[size] = account;
+            amounts[size] = amount;
+            size++;
+            return this;
+        }
+
+        private static long checkAmount(long minor){
+            if(minor <= 0 || minor > MAX_BALANCE){
+                throw new IllegalArgumentException("amount must be positive: " + minor);
+            }
+            return minor;
+        }
+    }
+
+    private final Path dir;
+    private final long[] balances;
+    private final int snapshotEvery;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private FileChannel journal;
+    private long journalSize;
+    private long lastBatch;
+    private long postings;
+    private int sinceSnapshot;
+    private IOException snapshotFailure;
+    // index of the posting that failed in the last apply()
+    private int failed;
+    private boolean closed;
+
+    private Ledger(Path dir, int accounts, int snapshotEvery){
+        this.dir = dir;
+        this.balances = new long[accounts];
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public static Ledger open(Path dir, int accounts) throws IOException {
+        return open(dir, accounts, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    // creates the ledger or recovers it: newest snapshot + journal replay
+    public static Ledger open(Path dir, int accounts, int snapshotEvery) throws IOException {
+        if(accounts <= 0 || snapshotEvery <= 0){
+            throw new IllegalArgumentException("accounts and snapshotEvery must be positive");
+        }
+        Files.createDirectories(dir);
+        Ledger ledger = new Ledger(dir, accounts, snapshotEvery);
+        ledger.recover();
+        return ledger;
+    }
+
+    // ACCEPTED: every posting applied and journaled; otherwise nothing changed
+    public synchronized BankAccount.Outcome post(Batch batch) throws IOException {
+        if(closed) throw new IOException("ledger is closed");
+        batch.failedAt = -1;
+        BankAccount.Outcome outcome = apply(batch.accounts, batch.amounts, batch.size);
+        if(outcome != BankAccount.Outcome.ACCEPTED){
+            batch.failedAt = failed;
+            return outcome;
+        }
+        try{
+            append(batch);
+        }catch (IOException e){
+            undo(batch.accounts, batch.amounts, batch.size);
+            throw e;
+        }
+        postings += batch.size;
+        if(++sinceSnapshot >= snapshotEvery){
+            // the batch is in already: an exception here would make callers post it twice
+            try{
+                snapshot();
+                snapshotFailure = null;
+            }catch (IOException e){
+                snapshotFailure = e;
+            }
+        }
+        return BankAccount.Outcome.ACCEPTED;
+    }
+
+    // why the last automatic snapshot failed, null once one succeeds
+    public synchronized IOException snapshotFailure(){
+        return snapshotFailure;
+    }
+
+    public synchronized long balance(int account){
+        return balances[account];
+    }
+
+    public synchronized int accounts(){
+        return balances.length;
+    }
+
+    // number of the last accepted batch (1, 2, 3, ...), 0 when there is none
+    public synchronized long lastBatch(){
+        return lastBatch;
+    }
+
+    // postings accepted since open() (replayed ones are not counted)
+    public synchronized long postings(){
+        return postings;
+    }
+
+    // buffered frames go to the journal file (OS cache)
+    public synchronized void flush() throws IOException {
+        writeBuffer();
+    }
+
+    // and to the disk
+    public synchronized void sync() throws IOException {
+        writeBuffer();
+        journal.force(false);
+    }
+
+    // writes a snapshot now and starts a new journal file
+    public synchronized void snapshot() throws IOException {
+        sync();
+        Path file = dir.resolve(name(SNAPSHOT_PREFIX, lastBatch, SNAPSHOT_SUFFIX));
+        Path temp = dir.resolve(file.getFileName() + ".tmp");
+        CRC32C checksum = new CRC32C();
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            OutputStream raw = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(raw, checksum), 1 << 16));
+            out.writeLong(lastBatch);
+            out.writeInt(balances.length);
+            for(long balance: balances){
+                out.writeLong(balance);
+            }
+            out.flush();
+            new DataOutputStream(raw).writeInt((int) checksum.getValue());
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        startJournal(lastBatch + 1);
+        syncDirectory();
+        sinceSnapshot = 0;
+        // the previous snapshot stays as a spare, older ones go
+        List<Long> snapshots = numbers(dir, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for(int i = 0; i < snapshots.size() - 2; i++){
+            Files.deleteIfExists(dir.resolve(name(SNAPSHOT_PREFIX, snapshots.get(i), SNAPSHOT_SUFFIX)));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed) return;
+        try{
+            sync();
+        }finally {
+            closed = true;
+            journal.close();
+        }
+    }
+
+    // helper functions....
+    private BankAccount.Outcome apply(int[] accounts, long[] amounts, int size){
+        for(int i = 0; i < size; i++){
+            int account = accounts[i];
+            if(account < 0 || account >= balances.length){
+                undo(accounts, amounts, i);
+                throw new IllegalArgumentException("no such account: " + account);
+            }
+            long next = balances[account] + amounts[i];
+            if(next < 0 || next > MAX_BALANCE){
+                undo(accounts, amounts, i);
+                failed = i;
+                return next < 0 ? BankAccount.Outcome.INSUFFICIENT_BALANCE : BankAccount.Outcome.BALANCE_OVERFLOW;
+            }
+            balances[account] = next;
+        }
+        return BankAccount.Outcome.ACCEPTED;
+    }
+
+    // takes back postings [0, end) in reverse order
+    private void undo(int[] accounts, long[] amounts, int end){
+        for(int i = end - 1; i >= 0; i--){
+            balances[accounts[i]] -= amounts[i];
+        }
+    }
+
+    private void append(Batch batch) throws IOException {
+        int payloadBytes = PAYLOAD_HEADER_BYTES + batch.size * POSTING_BYTES;
+        int frameBytes = Integer.BYTES + payloadBytes + Integer.BYTES;
+        if(buffer.remaining() < frameBytes){
+            writeBuffer();
+            if(buffer.capacity() < frameBytes){
+                buffer = ByteBuffer.allocate(frameBytes);
+            }
+        }
+        int start = buffer.position();
+        buffer.putInt(payloadBytes);
+        buffer.putLong(lastBatch + 1);
+        buffer.putInt(batch.size);
+        for(int i = 0; i < batch.size; i++){
+            buffer.putInt(batch.accounts[i]);
+            buffer.putLong(batch.amounts[i]);
+        }
+        crc.reset();
+        crc.update(buffer.array(), start + Integer.BYTES, payloadBytes);
+        buffer.putInt((int) crc.getValue());
+        lastBatch++;
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        try{
+            while(buffer.hasRemaining()){
+                journalSize += journal.write(buffer, journalSize);
+            }
+        }finally {
+            buffer.compact();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> snapshots = numbers(dir, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        long snapshotBatch = 0;
+        for(int i = snapshots.size() - 1; i >= 0; i--){
+            if(readSnapshot(dir.resolve(name(SNAPSHOT_PREFIX, snapshots.get(i), SNAPSHOT_SUFFIX)))){
+                snapshotBatch = snapshots.get(i);
+                break;
+            }
+        }
+        lastBatch = snapshotBatch;
+
+        // replay: the journal file the snapshot points into, and every later one
+        List<Long> journals = numbers(dir, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+        int first = 0;
+        for(int i = 0; i < journals.size(); i++){
+            if(journals.get(i) <= snapshotBatch + 1) first = i;
+        }
+        for(int i = first; i < journals.size(); i++){
+            boolean last = i == journals.size() - 1;
+            replay(dir.resolve(name(JOURNAL_PREFIX, journals.get(i), JOURNAL_SUFFIX)), last);
+        }
+        if(journals.isEmpty()){
+            startJournal(lastBatch + 1);
+            syncDirectory();
+        }
+    }
+
+    // false when the snapshot is damaged (e.g. crash while writing it)
+    private boolean readSnapshot(Path file) throws IOException {
+        CRC32C checksum = new CRC32C();
+        long fileSize = Files.size(file);
+        try(InputStream raw = Files.newInputStream(file)){
+            DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(raw, 1 << 16), checksum));
+            long batch = in.readLong();
+            int count = in.readInt();
+            // the count isn't covered by the CRC yet: trust it only if the file size agrees
+            if(count < 0 || fileSize != Long.BYTES + Integer.BYTES + (long) count * Long.BYTES + Integer.BYTES){
+                return false;
+            }
+            long[] read = new long[count];
+            for(int i = 0; i < count; i++){
+                read[i] = in.readLong();
+            }
+            int expected = (int) checksum.getValue();
+            if(in.readInt() != expected) return false;
+            // an intact snapshot of another ledger size is a real mismatch, not damage
+            if(count != balances.length){
+                throw new IOException(file + " has " + count + " accounts, the ledger " + balances.length);
+            }
+            System.arraycopy(read, 0, balances, 0, count);
+            lastBatch = batch;
+            return true;
+        }catch (EOFException e){
+            return false;
+        }
+    }
+
+    // applies the frames after lastBatch; the last file stays open for appending
+    private void replay(Path file, boolean last) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try{
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+            in.limit(0);
+            int[] accounts = new int[0];
+            long[] amounts = new long[0];
+            while(position < size){
+                if(in.remaining() < Integer.BYTES && !fill(channel, in, position + in.remaining(), Integer.BYTES)) break;
+                int payloadBytes = in.getInt(in.position());
+                if(payloadBytes < PAYLOAD_HEADER_BYTES || (payloadBytes - PAYLOAD_HEADER_BYTES) % POSTING_BYTES != 0) break;
+                // a torn or garbage length: the valid journal ends here, allocate nothing for it
+                if((long) payloadBytes + 2 * Integer.BYTES > size - position) break;
+                int frameBytes = Integer.BYTES + payloadBytes + Integer.BYTES;
+                if(in.capacity() < frameBytes){
+                    ByteBuffer bigger = ByteBuffer.allocate(frameBytes);
+                    bigger.put(in).flip();
+                    in = bigger;
+                }
+                if(in.remaining() < frameBytes && !fill(channel, in, position + in.remaining(), frameBytes)) break;
+                int start = in.position();
+                crc.reset();
+                crc.update(in.array(), start + Integer.BYTES, payloadBytes);
+                if(in.getInt(start + Integer.BYTES + payloadBytes) != (int) crc.getValue()) break;
+
+                in.position(start + Integer.BYTES);
+                long batch = in.getLong();
+                int count = in.getInt();
+                if(batch > lastBatch){
+                    if(batch != lastBatch + 1){
+                        throw new IOException(file + ": batch " + batch + " follows batch " + lastBatch);
+                    }
+                    if(accounts.length < count){
+                        accounts = new int[count];
+                        amounts = new long[count];
+                    }
+                    for(int i = 0; i < count; i++){
+                        accounts[i] = in.getInt();
+                        amounts[i] = in.getLong();
+                    }
+                    if(apply(accounts, amounts, count) != BankAccount.Outcome.ACCEPTED){
+                        throw new IOException(file + ": batch " + batch + " does not apply");
+                    }
+                    lastBatch = batch;
+                    sinceSnapshot++;
+                }
+                in.position(start + frameBytes);
+                position += frameBytes;
+            }
+            if(position < size){
+                if(!last) throw new IOException(file + " is damaged at byte " + position);
+                // half-written frame from a crash
+                channel.truncate(position);
+                channel.force(true);
+            }
+            if(last){
+                journal = channel;
+                journalSize = position;
+                channel = null;
+            }
+        }finally {
+            if(channel != null) channel.close();
+        }
+    }
+
+    // reads until in holds at least bytes; false at the end of the file
+    private static boolean fill(FileChannel channel, ByteBuffer in, long from, int bytes) throws IOException {
+        in.compact();
+        try{
+            while(in.position() < bytes){
+                int n = channel.read(in, from);
+                if(n < 0) return false;
+                from += n;
+            }
+            return true;
+        }finally {
+            in.flip();
+        }
+    }
+
+    private void startJournal(long firstBatch) throws IOException {
+        FileChannel next = FileChannel.open(dir.resolve(name(JOURNAL_PREFIX, firstBatch, JOURNAL_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if(journal != null) journal.close();
+        journal = next;
+        journalSize = next.size();
+    }
+
+    private static String name(String prefix, long number, String suffix){
+        return prefix + String.format("%020d", number) + suffix;
+    }
+
+    private static List<Long> numbers(Path dir, String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + suffix)){
+            for(Path file: files){
+                String name = file.getFileName().toString();
+                String digits = name.substring(prefix.length(), name.length() - suffix.length());
+                if(digits.length() == 20 && digits.chars().allMatch(Character::isDigit)){
+                    numbers.add(Long.parseLong(digits));
+                }
+            }
+        }
+        numbers.sort(Comparator.naturalOrder());
+        return numbers;
+    }
+
+    // makes new and renamed files durable too (not supported on every OS)
+    private void syncDirectory(){
+        try(FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)){
+            channel.force(true);
+        }catch (IOException e){
+            // best effort
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("ledger");
+        int accounts = 10_000;
+        Batch batch = new Batch(64);
+
+        try(Ledger ledger = Ledger.open(dir, accounts)){
+            for(int account = 0; account < accounts; account++){
+                batch.deposit(account, 1000_00);
+                if(batch.size() == 64){
+                    ledger.post(batch);
+                    batch.clear();
+                }
+            }
+            ledger.post(batch);
+
+            // a batch that can't be applied changes nothing
+            batch.clear().transfer(0, 1, 500_00).withdraw(0, 600_00);
+            System.out.println("rejected: " + ledger.post(batch) + " at posting " + batch.failedAt()
+                    + ", balance of 0: " + ledger.balance(0));
+
+            // 32 transfers (64 postings) per batch
+            long start = System.nanoTime();
+            for(int round = 0; round < 200_000; round++){
+                batch.clear();
+                for(int i = 0; i < 32; i++){
+                    int from = (round * 31 + i * 97) % accounts;
+                    batch.transfer(from, (from + 1 + i) % accounts, 1);
+                }
+                ledger.post(batch);
+            }
+            ledger.sync();
+            long nanos = System.nanoTime() - start;
+            System.out.println(ledger.postings() + " postings, " + ledger.postings() * 1_000_000_000L / nanos
+                    + " postings/s, last batch " + ledger.lastBatch());
+            System.out.println("balance of 0: " + ledger.balance(0));
+        }
+
+        long start = System.nanoTime();
+        try(Ledger ledger = Ledger.open(dir, accounts)){
+            long total = 0;
+            for(int account = 0; account < accounts; account++){
+                total += ledger.balance(account);
+            }
+            System.out.println("reopened in " + (System.nanoTime() - start) / 1_000_000 + "ms, last batch "
+                    + ledger.lastBatch() + ", balance of 0: " + ledger.balance(0) + ", total " + total);
+        }
+    }
+}
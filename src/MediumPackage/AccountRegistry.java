@@ -0,0 +1,273 @@
+package MediumPackage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+    Looking up tens of millions of accounts by acc_no:
+    - HashMap<String, BankAccount> stores per account a map node (32 bytes),
+      the key String (24 + its byte[] 24), the BankAccount object (40) and a
+      table slot: well over 100 bytes before the name is even counted, and
+      every lookup with a new String key allocates
+    - AccountRegistry turns acc_no into a long (below) and keeps plain arrays:
+      keys[] + balances[] (+ types[]), the same slot number in each one
+      (parallel columns). About 17 bytes per slot, at most 75% of the slots
+      are used.
+    - open addressing: no nodes, no pointers. A key goes to slot hash(key);
+      if that slot is taken, the next one, and so on (linear probing). A
+      lookup reads neighbouring slots of one array, which is cache friendly.
+    - lookup, deposit and withdraw take the long key and allocate nothing;
+      encode(CharSequence) is allocation-free too
+
+    acc_no -> long:
+    - up to 12 characters from 0-9 and A-Z (lower case is read as upper case)
+    - every character is a digit 1..36 of a base-37 number; 0 is never a
+      digit, so "ACC01" and "ACC001" get different numbers and the key 0
+      can mark an empty slot. 37^12 still fits in a long.
+
+    Balances are long minor units (cents), a deposit that would overflow is
+    refused. The account type must be saving, current or fixed. Not thread-safe.
+*/
+class AccountRegistry {
+    static final int MAX_ACC_NO_LENGTH = 12;
+    static final String[] TYPES = {"saving", "current", "fixed"};
+    private static final long EMPTY = 0;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] balances;
+    private byte[] types;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public AccountRegistry(int expectedAccounts){
+        int capacity = 16;
+        while(capacity < MAX_CAPACITY && capacity * 3L / 4 < expectedAccounts){
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    // 0 when accNo can't be encoded (empty, too long, other characters)
+    public static long encode(CharSequence accNo){
+        int length = accNo.length();
+        if(length == 0 || length > MAX_ACC_NO_LENGTH) return 0;
+        long key = 0;
+        for(int i = 0; i < length; i++){
+            int digit = digit(accNo.charAt(i));
+            if(digit == 0) return 0;
+            key = key * 37 + digit;
+        }
+        return key;
+    }
+
+    public static String decode(long key){
+        char[] chars = new char[MAX_ACC_NO_LENGTH];
+        int start = chars.length;
+        while(key > 0){
+            int digit = (int) (key % 37);
+            chars[--start] = (char) (digit <= 10 ? '0' + digit - 1 : 'A' + digit - 11);
+            key /= 37;
+        }
+        return new String(chars, start, chars.length - start);
+    }
+
+    // false when the account number is already taken
+    public boolean open(CharSequence accNo, long balanceMinor, String type){
+        long key = encode(accNo);
+        if(key == 0){
+            throw new IllegalArgumentException("acc_no must be 1-12 characters of 0-9 and A-Z: " + accNo);
+        }
+        if(balanceMinor < 0){
+            throw new IllegalArgumentException("negative balance is not allowed: " + balanceMinor);
+        }
+        byte typeCode = typeCode(type);
+        int slot = find(key);
+        if(slot >= 0) return false;
+        if(size >= resizeAt){
+            grow();
+            slot = find(key);
+        }
+        slot = -slot - 1;
+        keys[slot] = key;
+        balances[slot] = balanceMinor;
+        types[slot] = typeCode;
+        size++;
+        return true;
+    }
+
+    // IllegalArgumentException for a type setAccountType let through (e.g. "Savings")
+    public boolean add(BankAccount account){
+        return open(account.acc_no, Math.round(account.getBalance() * 100), account.type);
+    }
+
+    public boolean contains(long key){
+        return find(key) >= 0;
+    }
+
+    public long balance(long key, long missing){
+        int slot = find(key);
+        return slot >= 0 ? balances[slot] : missing;
+    }
+
+    public String type(long key){
+        int slot = find(key);
+        return slot >= 0 ? TYPES[types[slot]] : null;
+    }
+
+    // same rules as BankAccount: positive amount, no overdraft
+    public boolean deposit(long key, long minor){
+        int slot = find(key);
+        // no wrap-around to a negative balance
+        if(slot < 0 || minor <= 0 || minor > Long.MAX_VALUE - balances[slot]) return false;
+        balances[slot] += minor;
+        return true;
+    }
+
+    public boolean withdraw(long key, long minor){
+        int slot = find(key);
+        if(slot < 0 || minor <= 0 || balances[slot] < minor) return false;
+        balances[slot] -= minor;
+        return true;
+    }
+
+    public boolean remove(long key){
+        int slot = find(key);
+        if(slot < 0) return false;
+        // backward shift: move later entries of the same run into the hole,
+        // so lookups never stop early at it (no "deleted" markers needed)
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while(keys[next] != EMPTY){
+            int home = home(keys[next]);
+            // entry at next may move to hole if its home slot is not in (hole, next]
+            if(((next - home) & mask) >= ((next - hole) & mask)){
+                keys[hole] = keys[next];
+                balances[hole] = balances[next];
+                types[hole] = types[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        balances[hole] = 0;
+        types[hole] = 0;
+        size--;
+        return true;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // bytes held by the three columns
+    public long memoryBytes(){
+        return (long) keys.length * (Long.BYTES + Long.BYTES + 1);
+    }
+
+    // helper functions....
+    private static int digit(char c){
+        if(c >= '0' && c <= '9') return c - '0' + 1;
+        if(c >= 'A' && c <= 'Z') return c - 'A' + 11;
+        if(c >= 'a' && c <= 'z') return c - 'a' + 11;
+        return 0;
+    }
+
+    // only the known types have a code, anything else would be stored wrong
+    private static byte typeCode(String type){
+        for(int i = 0; i < TYPES.length; i++){
+            if(TYPES[i].equals(type)) return (byte) i;
+        }
+        throw new IllegalArgumentException("account type must be one of saving, current, fixed: " + type);
+    }
+
+    // keys of consecutive accounts are consecutive numbers, so mix the bits
+    // before taking the low ones (fmix64 of MurmurHash3)
+    private int home(long key){
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    // slot of key, or -(empty slot where it would go) - 1
+    private int find(long key){
+        if(key == EMPTY) return -1;
+        int slot = home(key);
+        while(true){
+            long current = keys[slot];
+            if(current == key) return slot;
+            if(current == EMPTY) return -slot - 1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void allocate(int capacity){
+        keys = new long[capacity];
+        balances = new long[capacity];
+        types = new byte[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity == MAX_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    private void grow(){
+        if(keys.length == MAX_CAPACITY){
+            throw new IllegalStateException("registry is full: " + size + " accounts");
+        }
+        long[] oldKeys = keys;
+        long[] oldBalances = balances;
+        byte[] oldTypes = types;
+        allocate(oldKeys.length * 2);
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldKeys[i] == EMPTY) continue;
+            int slot = -find(oldKeys[i]) - 1;
+            keys[slot] = oldKeys[i];
+            balances[slot] = oldBalances[i];
+            types[slot] = oldTypes[i];
+        }
+    }
+
+    public static void main(String[] args){
+        int accounts = 2_000_000;
+        AccountRegistry registry = new AccountRegistry(accounts);
+        StringBuilder accNo = new StringBuilder();
+        for(int i = 0; i < accounts; i++){
+            accNo.setLength(0);
+            accNo.append("ACC").append(i);
+            registry.open(accNo, 1000_00, "saving");
+        }
+        System.out.println(registry.size() + " accounts, " + registry.memoryBytes() / registry.size() + " bytes per account");
+
+        // the caller keeps the long key, no String needed for lookups
+        long key = encode("ACC12345");
+        registry.deposit(key, 500_00);
+        registry.withdraw(key, 200_00);
+        System.out.println(decode(key) + ": " + registry.balance(key, -1) / 100.0 + " (" + registry.type(key) + ")");
+        System.out.println("overdraft allowed? " + registry.withdraw(key, 1_000_000_00));
+
+        long start = System.nanoTime();
+        long total = 0;
+        for(int i = 0; i < accounts; i++){
+            accNo.setLength(0);
+            accNo.append("ACC").append(i);
+            total += registry.balance(encode(accNo), 0);
+        }
+        System.out.println("registry: " + (System.nanoTime() - start) / accounts + " ns per lookup, total " + total / 100);
+
+        // the same accounts as objects in a HashMap
+        Map<String, BankAccount> map = new HashMap<>();
+        for(int i = 0; i < accounts; i++){
+            String number = "ACC" + i;
+            map.put(number, new BankAccount(number, "holder", 1000.0, "saving"));
+        }
+        start = System.nanoTime();
+        double mapTotal = 0;
+        for(int i = 0; i < accounts; i++){
+            mapTotal += map.get("ACC" + i).getBalance();
+        }
+        System.out.println("HashMap:  " + (System.nanoTime() - start) / accounts + " ns per lookup, total " + (long) mapTotal);
+    }
+}
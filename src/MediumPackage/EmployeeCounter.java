@@ -0,0 +1,82 @@
+package MediumPackage;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Counting employees created by many threads:
+    - total_emp++ is read, add, write: two threads can read the same value and
+      one increment is lost
+    - an AtomicInteger fixes that, but every thread then updates the same
+      cache line, which has to travel between cores on every increment
+    - a LongAdder keeps several cells; under contention each thread adds to
+      its own cell and sum() adds the cells up. Increments stay cheap, reading
+      is a bit more work (fine, counts are read far less often)
+    - per department: one LongAdder per department name in a
+      ConcurrentHashMap; after the first employee of a department the map
+      is only read (get), never locked
+
+    Counts are taken when the employee is created; changing the public
+    department field later doesn't move the employee to another department.
+*/
+class EmployeeCounter {
+    private final LongAdder total = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> departments = new ConcurrentHashMap<>();
+
+    public void added(String department){
+        total.increment();
+        String key = department == null ? "" : department;
+        LongAdder counter = departments.get(key);
+        if(counter == null){
+            counter = departments.computeIfAbsent(key, d -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    public long total(){
+        return total.sum();
+    }
+
+    public long inDepartment(String department){
+        LongAdder counter = departments.get(department == null ? "" : department);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    // department -> count, sorted by name
+    public Map<String, Long> byDepartment(){
+        Map<String, Long> counts = new TreeMap<>();
+        departments.forEach((department, counter) -> counts.put(department, counter.sum()));
+        return counts;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] names = {"Engineering", "Marketing", "Sales", "Support"};
+        EmployeeCounter counter = new EmployeeCounter();
+        int[] plain = new int[1];
+        Thread[] threads = new Thread[8];
+        long start = System.nanoTime();
+        for(int t = 0; t < threads.length; t++){
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < 1_000_000; i++){
+                    counter.added(names[(i + offset) & 3]);
+                    plain[0]++;
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread: threads){
+            thread.join();
+        }
+        System.out.println("expected 8000000, plain int: " + plain[0] + ", counter: " + counter.total()
+                + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        System.out.println(counter.byDepartment());
+
+        // Employee uses one for getTotalEmployees()
+        new Employee(1001, "Engineering", "software developer", "projectX", 75000);
+        System.out.println("Total employees: " + Employee.getTotalEmployees()
+                + ", in Engineering: " + Employee.getEmployeesIn("Engineering"));
+    }
+}
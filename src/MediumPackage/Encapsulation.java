@@ -51,6 +51,10 @@ class BankAccount {
     public void showBalance(){
         System.out.println("current balance in account: " + balance);
     }
+    // read-only access, there is no setter: balance changes only via deposit / withdraw
+    public double getBalance(){
+        return balance;
+    }
     public void deposit(double amount){
         if(amount <= 0){
             System.out.println("please enter valid amount");
@@ -160,7 +164,13 @@ class Student {
             grades_avg += i;
         }
 
-        return grades_avg / index + 1;
+        // only the first index grades are set, and no grades means no average
+        if(index == 0) return 0;
+        return grades_avg / index;
+    }
+
+    public int gradeCount(){
+        return index;
     }
 
     // getter function
@@ -177,8 +187,14 @@ class Employee {
     private double salary;             // Private - accessible only within this class
     private final int employeeId;      // Final field - cannot be changed after initialization
 
-    // static class variable
-    private static int total_emp = 0;
+    // payroll rules, PayrollBatch uses the same ones
+    static final double MIN_SALARY = 30000;
+    static final double MAX_SALARY = 200000;
+    static final double MAX_RAISE_PERCENT = 50;
+    static final double TAX_RATE = 0.25;
+
+    // static class variable: counts every Employee created, from any thread
+    private static final EmployeeCounter employees = new EmployeeCounter();
 
     public Employee(int emp_id, String department, String position, String projectName, double salary){
         this.employeeId = emp_id;
@@ -186,7 +202,7 @@ class Employee {
         this.position = position;
         this.projectName = projectName;
         setSalary(salary);
-        total_emp++;
+        employees.added(department);
     }
 
     // Getter for private final field (read-only)
@@ -200,7 +216,7 @@ class Employee {
     }
 
     public void setSalary(double salary){
-        if(salary >= 30000 && salary <= 200000){
+        if(salary >= MIN_SALARY && salary <= MAX_SALARY){
             this.salary = salary;
             System.out.println("salary update to :$" + salary);
         }else{
@@ -210,12 +226,21 @@ class Employee {
 
     // Static method to access private static variable
     public static int getTotalEmployees() {
-        return total_emp;
+        return (int) employees.total();
+    }
+
+    public static long getEmployeesIn(String department) {
+        return employees.inDepartment(department);
     }
 
     public void giveRaise(double percentage){
-        if(percentage > 0 && percentage <= 50){
-            double salary = this.salary + 0.50 * (this.salary);
+        if(percentage > 0 && percentage <= MAX_RAISE_PERCENT){
+            double salary = this.salary + this.salary * percentage / 100;
+            // same upper limit as setSalary
+            if(salary > MAX_SALARY){
+                System.out.println("Error: Raise would take the salary above $200,000");
+                return;
+            }
             this.salary = salary;
             System.out.println("Raise of " + percentage + "% granted. New salary: $" + salary);
         } else {
@@ -226,7 +251,7 @@ class Employee {
     // Method with different access levels for internal operations
     private void calculateTax(){
         // Private method - internal business logic
-        double tax = salary * 0.25;
+        double tax = salary * TAX_RATE;
         System.out.println("Calculated tax: $" + tax);
     }
 }
@@ -258,6 +283,12 @@ public class Encapsulation {
         account.setAccountType("current");
         account.displayInfo();
 
+        // many accounts: keep them in an AccountRegistry, looked up by a long key
+        AccountRegistry registry = new AccountRegistry(1000);
+        registry.add(account);
+        long key = AccountRegistry.encode(account.acc_no);
+        System.out.println("registry: " + AccountRegistry.decode(key) + " -> " + registry.balance(key, -1) + " cents");
+
         System.out.println("\n" + "=".repeat(70) + "\n");
 
 
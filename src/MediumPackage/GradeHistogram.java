@@ -0,0 +1,231 @@
+package MediumPackage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    p50 / p90 / p99 over billions of grades:
+    - keeping every grade to sort it later needs memory for every grade
+    - a grade is between 0 and 100 (Student.addGrade checks that), so there
+      are only 10001 different grades with two decimals: one counter per
+      grade (a histogram) answers any percentile exactly at that resolution,
+      with the same 80 KB whether 10 or 10 billion grades went in
+    - percentile = walk the counters from 0 upwards until the running total
+      reaches the wanted rank (nearest rank)
+    - two histograms merge by adding their counters: shards (threads,
+      machines) each record their own, and merge() or writeTo()/readFrom()
+      combine them; the result is the same as recording everything in one
+
+    Many threads:
+    - counters are AtomicLongArray (incrementAndGet, no lock); still, all
+      threads hitting the counter of a popular grade fight over one cache line
+    - so there are several stripes of counters, a thread always uses the
+      stripe of its thread id; reading sums the stripes
+    - reads while others record see each grade either counted or not yet
+*/
+class GradeHistogram {
+    static final int SCALE = 100;
+    static final int BUCKETS = 100 * SCALE + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    public GradeHistogram(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // stripes is rounded up to a power of two, at most 64
+    public GradeHistogram(int stripes){
+        int count = 1;
+        while(count < stripes && count < 64){
+            count <<= 1;
+        }
+        this.stripes = new AtomicLongArray[count];
+        for(int i = 0; i < count; i++){
+            this.stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        this.stripeMask = count - 1;
+    }
+
+    // same rule as Student.addGrade: 0 to 100
+    public boolean record(float grade){
+        return record(grade, 1);
+    }
+
+    public boolean record(float grade, long times){
+        if(!(grade >= 0 && grade <= 100) || times <= 0) return false;
+        stripe().addAndGet(Math.round(grade * SCALE), times);
+        return true;
+    }
+
+    public void record(Student student){
+        float[] grades = student.getGrades();
+        for(int g = 0; g < student.gradeCount(); g++){
+            record(grades[g]);
+        }
+    }
+
+    // adds other's counts to this histogram (other keeps its counts)
+    public void merge(GradeHistogram other){
+        long[] counts = other.counts();
+        AtomicLongArray target = stripe();
+        for(int bucket = 0; bucket < BUCKETS; bucket++){
+            if(counts[bucket] != 0) target.addAndGet(bucket, counts[bucket]);
+        }
+    }
+
+    public long count(){
+        long total = 0;
+        for(long c: counts()){
+            total += c;
+        }
+        return total;
+    }
+
+    // exact mean at the two-decimal resolution
+    public double mean(){
+        long[] counts = counts();
+        long total = 0;
+        double sum = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++){
+            total += counts[bucket];
+            sum += (double) counts[bucket] * bucket;
+        }
+        return total == 0 ? 0 : sum / total / SCALE;
+    }
+
+    public float quantile(double q){
+        return quantiles(q)[0];
+    }
+
+    // several quantiles (0..1, e.g. 0.5, 0.9, 0.99) from one pass over the counters:
+    // the ranks are visited in increasing order during a single cumulative walk
+    public float[] quantiles(double... qs){
+        long[] counts = counts();
+        long total = 0;
+        for(long c: counts){
+            total += c;
+        }
+        float[] result = new float[qs.length];
+        Integer[] order = new Integer[qs.length];
+        for(int i = 0; i < qs.length; i++){
+            if(!(qs[i] >= 0 && qs[i] <= 1)){
+                throw new IllegalArgumentException("quantile must be in [0, 1]: " + qs[i]);
+            }
+            order[i] = i;
+        }
+        if(total == 0) return result;
+        Arrays.sort(order, (a, b) -> Double.compare(qs[a], qs[b]));
+        long seen = counts[0];
+        int bucket = 0;
+        for(int i: order){
+            long rank = Math.max(1, (long) Math.ceil(qs[i] * total));
+            while(seen < rank){
+                seen += counts[++bucket];
+            }
+            result[i] = (float) bucket / SCALE;
+        }
+        return result;
+    }
+
+    public void reset(){
+        for(AtomicLongArray stripe: stripes){
+            for(int bucket = 0; bucket < BUCKETS; bucket++){
+                stripe.set(bucket, 0);
+            }
+        }
+    }
+
+    // only the non-empty buckets: [int buckets][(short bucket, long count)...]
+    public void writeTo(DataOutput out) throws IOException {
+        long[] counts = counts();
+        int used = 0;
+        for(long c: counts){
+            if(c != 0) used++;
+        }
+        out.writeInt(used);
+        for(int bucket = 0; bucket < BUCKETS; bucket++){
+            if(counts[bucket] != 0){
+                out.writeShort(bucket);
+                out.writeLong(counts[bucket]);
+            }
+        }
+    }
+
+    // adds the counts written by writeTo (merging, like merge())
+    public void readFrom(DataInput in) throws IOException {
+        int used = in.readInt();
+        AtomicLongArray target = stripe();
+        for(int i = 0; i < used; i++){
+            int bucket = in.readUnsignedShort();
+            long count = in.readLong();
+            if(bucket >= BUCKETS || count < 0) throw new IOException("bad bucket " + bucket + ": " + count);
+            target.addAndGet(bucket, count);
+        }
+    }
+
+    // helper functions....
+    private AtomicLongArray stripe(){
+        return stripes[(int) Thread.currentThread().getId() & stripeMask];
+    }
+
+    // the stripes added together
+    private long[] counts(){
+        long[] counts = new long[BUCKETS];
+        for(AtomicLongArray stripe: stripes){
+            for(int bucket = 0; bucket < BUCKETS; bucket++){
+                counts[bucket] += stripe.get(bucket);
+            }
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // 4 shards filled by 4 threads, then merged into one
+        int threads = 4;
+        long perThread = 5_000_000;
+        GradeHistogram shared = new GradeHistogram();
+        GradeHistogram[] shards = new GradeHistogram[threads];
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++){
+            GradeHistogram shard = shards[t] = new GradeHistogram(1);
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for(long i = 0; i < perThread; i++){
+                    // grades around 70, spread 12, cut to 0..100
+                    float grade = (float) Math.min(100, Math.max(0, 70 + 12 * random.nextGaussian()));
+                    grade = Math.round(grade * 10) / 10f;
+                    shard.record(grade);
+                    shared.record(grade);
+                }
+            });
+            workers[t].start();
+        }
+        for(Thread worker: workers){
+            worker.join();
+        }
+
+        GradeHistogram merged = new GradeHistogram(1);
+        for(GradeHistogram shard: shards){
+            merged.merge(shard);
+        }
+        float[] q = merged.quantiles(0.5, 0.9, 0.99);
+        float[] s = shared.quantiles(0.5, 0.9, 0.99);
+        System.out.printf("merged: %d grades, mean %.3f, p50 %.2f, p90 %.2f, p99 %.2f%n", merged.count(), merged.mean(), q[0], q[1], q[2]);
+        System.out.printf("shared: %d grades, mean %.3f, p50 %.2f, p90 %.2f, p99 %.2f%n", shared.count(), shared.mean(), s[0], s[1], s[2]);
+
+        // grades of one Student
+        Student student = new Student(12345, "sharad", "poddar", 20, "sharad@gmail.com");
+        student.addGrade(85.5f);
+        student.addGrade(92.0f);
+        student.addGrade(78.5f);
+        GradeHistogram one = new GradeHistogram(1);
+        one.record(student);
+        System.out.println("student: mean " + one.mean() + " (getAverage " + student.getAverage() + "), median " + one.quantile(0.5));
+    }
+}
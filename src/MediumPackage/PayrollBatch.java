@@ -0,0 +1,190 @@
+package MediumPackage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+    Payroll for millions of employees:
+    - Employee.giveRaise / calculateTax work on one object and print one line
+      each; for millions of employees the console output IS the run time
+    - PayrollBatch works on columns: salaries[i], raisePercents[i], taxes[i]
+      belong to employee i. It checks, raises and taxes every salary and
+      returns ONE Summary for the whole batch, nothing is printed per employee
+    - the rows are cut into chunks of CHUNK rows; chunks are RecursiveTasks on
+      a ForkJoinPool, so all cores work at once, and every chunk returns its
+      own partial Summary that is added to its neighbour's (no shared counters,
+      no locks)
+    - chunks are always split at the same rows and their sums added in the
+      same order, so the totals don't depend on the number of threads
+
+    Rules are Employee's (setSalary, giveRaise, calculateTax):
+    - a salary outside MIN_SALARY..MAX_SALARY is invalid: counted, left alone,
+      no tax computed (tax stays 0)
+    - a raise must be in (0, MAX_RAISE_PERCENT] and may not push the salary
+      above MAX_SALARY, otherwise it's rejected and the old salary stays
+    - tax = new salary * TAX_RATE
+*/
+class PayrollBatch {
+    static final int CHUNK = 16 * 1024;
+
+    public static final class Summary {
+        public long employees;
+        public long invalidSalaries;
+        public long raised;
+        public long raisesRejected;
+        public double grossBefore;
+        public double grossAfter;
+        public double tax;
+        public double minSalary = Double.POSITIVE_INFINITY;
+        public double maxSalary = Double.NEGATIVE_INFINITY;
+
+        public double net(){
+            return grossAfter - tax;
+        }
+
+        void add(Summary other){
+            employees += other.employees;
+            invalidSalaries += other.invalidSalaries;
+            raised += other.raised;
+            raisesRejected += other.raisesRejected;
+            grossBefore += other.grossBefore;
+            grossAfter += other.grossAfter;
+            tax += other.tax;
+            minSalary = Math.min(minSalary, other.minSalary);
+            maxSalary = Math.max(maxSalary, other.maxSalary);
+        }
+
+        @Override
+        public String toString(){
+            long valid = employees - invalidSalaries;
+            return String.format("employees: %d (%d invalid salaries)%n"
+                            + "raises: %d granted, %d rejected%n"
+                            + "gross: $%.2f -> $%.2f%n"
+                            + "tax: $%.2f, net: $%.2f%n"
+                            + "salary range: $%.2f .. $%.2f",
+                    employees, invalidSalaries, raised, raisesRejected, grossBefore, grossAfter,
+                    tax, net(), valid == 0 ? 0 : minSalary, valid == 0 ? 0 : maxSalary);
+        }
+    }
+
+    private PayrollBatch(){
+    }
+
+    // salaries are raised in place, taxes[i] gets the tax of employee i;
+    // raisePercents may be null (no raises)
+    public static Summary run(double[] salaries, double[] raisePercents, double[] taxes){
+        return run(ForkJoinPool.commonPool(), salaries, raisePercents, taxes);
+    }
+
+    public static Summary run(ForkJoinPool pool, double[] salaries, double[] raisePercents, double[] taxes){
+        if(raisePercents != null && raisePercents.length != salaries.length || taxes.length != salaries.length){
+            throw new IllegalArgumentException("columns must have the same length");
+        }
+        return pool.invoke(new Chunk(salaries, raisePercents, taxes, 0, salaries.length));
+    }
+
+    // the salary column of some Employee objects
+    public static double[] salaryColumn(List<Employee> employees){
+        double[] salaries = new double[employees.size()];
+        for(int i = 0; i < salaries.length; i++){
+            salaries[i] = employees.get(i).getSalary();
+        }
+        return salaries;
+    }
+
+    // helper functions....
+    private static final class Chunk extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] salaries;
+        private final double[] raisePercents;
+        private final double[] taxes;
+        private final int from;
+        private final int to;
+
+        Chunk(double[] salaries, double[] raisePercents, double[] taxes, int from, int to){
+            this.salaries = salaries;
+            this.raisePercents = raisePercents;
+            this.taxes = taxes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Summary compute(){
+            if(to - from <= CHUNK){
+                return payroll(salaries, raisePercents, taxes, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            Chunk left = new Chunk(salaries, raisePercents, taxes, from, mid);
+            Chunk right = new Chunk(salaries, raisePercents, taxes, mid, to);
+            left.fork();
+            Summary summary = right.compute();
+            Summary leftSummary = left.join();
+            leftSummary.add(summary);
+            return leftSummary;
+        }
+    }
+
+    private static Summary payroll(double[] salaries, double[] raisePercents, double[] taxes, int from, int to){
+        Summary summary = new Summary();
+        summary.employees = to - from;
+        for(int i = from; i < to; i++){
+            double salary = salaries[i];
+            if(!(salary >= Employee.MIN_SALARY && salary <= Employee.MAX_SALARY)){
+                summary.invalidSalaries++;
+                taxes[i] = 0;
+                continue;
+            }
+            summary.grossBefore += salary;
+            if(raisePercents != null){
+                double percentage = raisePercents[i];
+                double raisedSalary = salary + salary * percentage / 100;
+                if(percentage > 0 && percentage <= Employee.MAX_RAISE_PERCENT && raisedSalary <= Employee.MAX_SALARY){
+                    salary = raisedSalary;
+                    salaries[i] = salary;
+                    summary.raised++;
+                }else if(percentage != 0){
+                    summary.raisesRejected++;
+                }
+            }
+            double tax = salary * Employee.TAX_RATE;
+            taxes[i] = tax;
+            summary.grossAfter += salary;
+            summary.tax += tax;
+            summary.minSalary = Math.min(summary.minSalary, salary);
+            summary.maxSalary = Math.max(summary.maxSalary, salary);
+        }
+        return summary;
+    }
+
+    public static void main(String[] args){
+        int employees = 5_000_000;
+        Random random = new Random(7);
+        double[] salaries = new double[employees];
+        double[] raises = new double[employees];
+        for(int i = 0; i < employees; i++){
+            // a few salaries out of range, a few raises too big
+            salaries[i] = 25000 + random.nextInt(180_000);
+            raises[i] = random.nextInt(60);
+        }
+        double[] taxes = new double[employees];
+
+        long start = System.nanoTime();
+        Summary summary = run(salaries, raises, taxes);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(summary);
+        System.out.println("payroll of " + employees + " employees in " + millis + "ms on "
+                + ForkJoinPool.commonPool().getParallelism() + " worker threads");
+
+        // the same rules one employee at a time, also at the MAX_SALARY cap
+        for(double salary: new double[]{75000, 190000}){
+            Employee employee = new Employee(1001, "Engineering", "software developer", "projectX", salary);
+            employee.giveRaise(10);
+            double[] one = {salary};
+            System.out.println(run(one, new double[]{10}, new double[1]).grossAfter + " == " + employee.getSalary());
+        }
+    }
+}
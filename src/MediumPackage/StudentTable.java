@@ -0,0 +1,298 @@
+package MediumPackage;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+    Many students, class-wide numbers:
+    - a Student object holds its own float[7] grades plus Strings; averaging a
+      million of them follows a million pointers to objects and arrays spread
+      over the heap (cache misses, not arithmetic, is the cost)
+    - StudentTable stores COLUMNS instead of objects (struct of arrays):
+      rollNos[], ages[], gradeCounts[] and one float[] per grade slot, the
+      same row number in each one
+    - a query walks one or a few arrays front to back: contiguous memory, the
+      CPU prefetches it, and simple loops like
+          average[row] = (g0[row] + ... + g6[row]) / count[row]
+      are turned into SIMD instructions by the JIT (several rows at a time)
+    - unused grade slots hold 0, so every row can be added the same way
+
+    Queries: meanAverage, meanAge, percentile of the averages, topN rows by
+    average. Rows are 0, 1, 2, ... in insertion order. Not thread-safe.
+*/
+class StudentTable {
+    static final int GRADES = 7;
+
+    private int[] rollNos;
+    private int[] ages;
+    private byte[] gradeCounts;
+    private final float[][] grades = new float[GRADES][];
+    private int rows;
+
+    // filled by averages(), reused by the queries
+    private float[] averages = new float[0];
+    private int averagesFor = -1;
+
+    public StudentTable(int capacity){
+        capacity = Math.max(16, capacity);
+        rollNos = new int[capacity];
+        ages = new int[capacity];
+        gradeCounts = new byte[capacity];
+        for(int g = 0; g < GRADES; g++){
+            grades[g] = new float[capacity];
+        }
+    }
+
+    // returns the new row
+    public int add(int rollNo, int age){
+        if(rows == rollNos.length) grow();
+        rollNos[rows] = rollNo;
+        ages[rows] = age;
+        averagesFor = -1;
+        return rows++;
+    }
+
+    public int add(Student student){
+        int row = add(student.rollNo, student.age);
+        float[] studentGrades = student.getGrades();
+        for(int g = 0; g < student.gradeCount(); g++){
+            addGrade(row, studentGrades[g]);
+        }
+        return row;
+    }
+
+    // same rules as Student.addGrade
+    public boolean addGrade(int row, float grade){
+        checkRow(row);
+        int count = gradeCounts[row];
+        if(count >= GRADES || grade < 0 || grade > 100) return false;
+        grades[count][row] = grade;
+        gradeCounts[row] = (byte) (count + 1);
+        averagesFor = -1;
+        return true;
+    }
+
+    public int rows(){
+        return rows;
+    }
+
+    public int rollNo(int row){
+        checkRow(row);
+        return rollNos[row];
+    }
+
+    public float average(int row){
+        checkRow(row);
+        return averages()[row];
+    }
+
+    // mean of the student averages, students without grades are left out
+    public double meanAverage(){
+        float[] avg = averages();
+        double sum = 0;
+        int counted = 0;
+        for(int row = 0; row < rows; row++){
+            if(gradeCounts[row] > 0){
+                sum += avg[row];
+                counted++;
+            }
+        }
+        return counted == 0 ? 0 : sum / counted;
+    }
+
+    public double meanAge(){
+        if(rows == 0) return 0;
+        long sum = 0;
+        for(int row = 0; row < rows; row++){
+            sum += ages[row];
+        }
+        return (double) sum / rows;
+    }
+
+    // p in [0, 100], nearest rank over the averages of students with grades
+    public float percentile(double p){
+        if(!(p >= 0 && p <= 100)) throw new IllegalArgumentException("percentile must be in [0, 100]: " + p);
+        float[] avg = averages();
+        float[] values = new float[rows];
+        int n = 0;
+        for(int row = 0; row < rows; row++){
+            if(gradeCounts[row] > 0) values[n++] = avg[row];
+        }
+        if(n == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * n);
+        return select(values, n, Math.max(0, rank - 1));
+    }
+
+    // rows of the n best averages, best first
+    public int[] topN(int n){
+        if(n < 0) throw new IllegalArgumentException("n cannot be negative: " + n);
+        float[] avg = averages();
+        n = Math.min(n, rows);
+        // min-heap of the best n seen so far: the root is the one to beat
+        int[] heap = new int[n];
+        int size = 0;
+        for(int row = 0; row < rows; row++){
+            if(size < n){
+                heap[size] = row;
+                siftUp(heap, size++, avg);
+            }else if(n > 0 && avg[row] > avg[heap[0]]){
+                heap[0] = row;
+                siftDown(heap, size, avg);
+            }
+        }
+        // pop the heap: worst first, so fill from the back
+        int[] best = new int[size];
+        for(int i = size - 1; i >= 0; i--){
+            best[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, avg);
+        }
+        return best;
+    }
+
+    // helper functions....
+    // average of every row, computed once per change of the table
+    private float[] averages(){
+        if(averagesFor == rows) return averages;
+        if(averages.length < rollNos.length){
+            averages = new float[rollNos.length];
+        }
+        float[] avg = averages;
+        float[] g0 = grades[0], g1 = grades[1], g2 = grades[2], g3 = grades[3],
+                g4 = grades[4], g5 = grades[5], g6 = grades[6];
+        byte[] counts = gradeCounts;
+        for(int row = 0; row < rows; row++){
+            float sum = g0[row] + g1[row] + g2[row] + g3[row] + g4[row] + g5[row] + g6[row];
+            int count = counts[row];
+            avg[row] = count == 0 ? 0 : sum / count;
+        }
+        averagesFor = rows;
+        return avg;
+    }
+
+    // k-th smallest of values[0, n), quickselect (reorders values)
+    private static float select(float[] values, int n, int k){
+        int low = 0;
+        int high = n - 1;
+        while(low < high){
+            float pivot = values[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while(i <= j){
+                while(values[i] < pivot) i++;
+                while(values[j] > pivot) j--;
+                if(i <= j){
+                    float t = values[i];
+                    values[i++] = values[j];
+                    values[j--] = t;
+                }
+            }
+            if(k <= j){
+                high = j;
+            }else if(k >= i){
+                low = i;
+            }else{
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+
+    private static void siftUp(int[] heap, int i, float[] avg){
+        while(i > 0){
+            int parent = (i - 1) >>> 1;
+            if(avg[heap[parent]] <= avg[heap[i]]) return;
+            int t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] avg){
+        int i = 0;
+        while(true){
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if(left < size && avg[heap[left]] < avg[heap[smallest]]) smallest = left;
+            if(right < size && avg[heap[right]] < avg[heap[smallest]]) smallest = right;
+            if(smallest == i) return;
+            int t = heap[smallest];
+            heap[smallest] = heap[i];
+            heap[i] = t;
+            i = smallest;
+        }
+    }
+
+    private void grow(){
+        int capacity = rollNos.length * 2;
+        rollNos = Arrays.copyOf(rollNos, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        gradeCounts = Arrays.copyOf(gradeCounts, capacity);
+        for(int g = 0; g < GRADES; g++){
+            grades[g] = Arrays.copyOf(grades[g], capacity);
+        }
+    }
+
+    private void checkRow(int row){
+        if(row < 0 || row >= rows) throw new IndexOutOfBoundsException("no row " + row + ", rows: " + rows);
+    }
+
+    public static void main(String[] args){
+        int students = 1_000_000;
+        Random random = new Random(42);
+        StudentTable table = new StudentTable(students);
+        float[][] objects = new float[students][];
+        for(int i = 0; i < students; i++){
+            int row = table.add(100_000 + i, 18 + random.nextInt(10));
+            int count = 1 + random.nextInt(GRADES);
+            objects[i] = new float[GRADES];
+            for(int g = 0; g < count; g++){
+                float grade = (1 + random.nextInt(1000)) / 10f;
+                table.addGrade(row, grade);
+                objects[i][g] = grade;
+            }
+        }
+
+        for(int round = 0; round < 5; round++){
+            long start = System.nanoTime();
+            table.averagesFor = -1;
+            double mean = table.meanAverage();
+            long nanos = System.nanoTime() - start;
+            System.out.printf("mean of averages: %.3f in %d us%n", mean, nanos / 1000);
+        }
+        // the same grades as one float[7] per student (like Student.grades)
+        for(int round = 0; round < 5; round++){
+            long start = System.nanoTime();
+            double sum = 0;
+            for(int i = 0; i < students; i++){
+                float[] studentGrades = objects[i];
+                float total = 0;
+                int count = 0;
+                for(float grade: studentGrades){
+                    total += grade;
+                    if(grade > 0) count++;
+                }
+                sum += count == 0 ? 0 : total / count;
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("float[7] per student: %.3f in %d us%n", sum / students, nanos / 1000);
+        }
+        System.out.println("mean age: " + table.meanAge());
+        System.out.println("median: " + table.percentile(50) + ", p90: " + table.percentile(90));
+        int[] top = table.topN(3);
+        for(int row: top){
+            System.out.println("top: roll " + table.rollNo(row) + " avg " + table.average(row));
+        }
+
+        // the Student class, corrected average: (85.5 + 92 + 78.5) / 3
+        Student student = new Student(12345, "sharad", "poddar", 20, "sharad@gmail.com");
+        student.addGrade(85.5f);
+        student.addGrade(92.0f);
+        student.addGrade(78.5f);
+        StudentTable small = new StudentTable(4);
+        int row = small.add(student);
+        System.out.println("Student.getAverage: " + student.getAverage() + ", table: " + small.average(row));
+    }
+}
@@ -0,0 +1,340 @@
+package javaDemo;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Many threads writing small lines (log records) to one file:
+    - new FileWriter(...) + write + flush per line costs an open, a write and a
+      close system call for a few bytes, and threads sharing one Writer wait
+      on its lock while one of them is in the disk
+    - BatchingWriter: producer threads only put the line into a bounded ring
+      buffer (no lock, no I/O), ONE background thread takes the lines out,
+      encodes them into a 64 KB buffer and writes whole batches
+
+    The ring (multi-producer / single-consumer, Vyukov style):
+    - slot i has a sequence number; a producer claims the next position with
+      one CAS on the tail, stores the line and then publishes it by setting
+      the slot's sequence; the consumer reads slots in order
+    - when the ring is full offer() returns false right away (the caller
+      decides: drop, count, retry), it never waits for the disk
+
+    Flush policy:
+    - size:    a batch is written when the 64 KB (batchBytes) buffer is full
+    - time:    a line is written at most maxDelay after it was taken out of the ring
+    - barrier: flush() blocks the CALLER (not the producers) until every line
+               offered before it is written to the file
+
+    Every line gets a '\n' appended. The channel belongs to the writer and is
+    closed by close().
+*/
+public class BatchingWriter implements AutoCloseable {
+    static final int DEFAULT_CAPACITY = 64 * 1024;
+    static final int DEFAULT_BATCH_BYTES = 64 * 1024;
+    static final long DEFAULT_MAX_DELAY_MILLIS = 10;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final long maxDelayNanos;
+
+    // ring
+    private final String[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // only the I/O thread changes head, producers read it for the wake-up check
+    private volatile long head;
+
+    // I/O thread state
+    private final Thread ioThread;
+    private final ByteBuffer batch;
+    private long firstPendingNanos;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    // flush barrier: lines [0, flushTarget) must be written, [0, writtenUpTo) are
+    private final Object flushLock = new Object();
+    private volatile long flushTarget;
+    private volatile long writtenUpTo;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long batches;
+
+    public BatchingWriter(WritableByteChannel channel, Charset charset){
+        this(channel, charset, DEFAULT_CAPACITY, DEFAULT_BATCH_BYTES, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public BatchingWriter(WritableByteChannel channel, Charset charset, int capacity, int batchBytes,
+                          long maxDelay, TimeUnit unit){
+        if(capacity < 2 || Integer.bitCount(capacity) != 1){
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        if(batchBytes < 16){
+            throw new IllegalArgumentException("batch too small: " + batchBytes);
+        }
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.slots = new String[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++){
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.batch = ByteBuffer.allocateDirect(batchBytes);
+        this.ioThread = new Thread(this::run, "batching-writer");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    // appends to the file, the file is created if needed
+    public static BatchingWriter open(Path file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new BatchingWriter(channel, charset);
+    }
+
+    // never blocks; false when the ring is full or the writer is closed / failed
+    public boolean offer(String line){
+        if(!running || failure != null){
+            dropped.incrementAndGet();
+            return false;
+        }
+        long position = tail.get();
+        while(true){
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if(diff == 0){
+                if(tail.compareAndSet(position, position + 1)){
+                    slots[index] = line;
+                    // publish: the consumer may read the slot from now on
+                    sequences.set(index, position + 1);
+                    break;
+                }
+                position = tail.get();
+            }else if(diff < 0){
+                // the consumer has not freed this slot yet: full
+                dropped.incrementAndGet();
+                return false;
+            }else{
+                // another producer took this position
+                position = tail.get();
+            }
+        }
+        // wake the I/O thread if it went to sleep on an empty ring, or if the
+        // ring is half full and should be drained before it overflows
+        if(sleeping || position - head >= (mask + 1) / 2){
+            LockSupport.unpark(ioThread);
+        }
+        return true;
+    }
+
+    // waits until every line offered before this call is in the file
+    public void flush() throws IOException {
+        long target = tail.get();
+        synchronized(flushLock){
+            if(target > flushTarget) flushTarget = target;
+        }
+        LockSupport.unpark(ioThread);
+        synchronized(flushLock){
+            while(writtenUpTo < target && failure == null && ioThread.isAlive()){
+                try{
+                    flushLock.wait();
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while flushing");
+                }
+            }
+        }
+        if(failure != null) throw failure;
+    }
+
+    public long dropped(){
+        return dropped.get();
+    }
+
+    // number of write() calls to the channel, far less than lines when batching works
+    public long batches(){
+        return batches;
+    }
+
+    public long written(){
+        return writtenUpTo;
+    }
+
+    // writes everything offered before close, then closes the channel
+    // (a line offered by another thread WHILE close runs may be lost)
+    @Override
+    public void close() throws IOException {
+        if(!running) return;
+        running = false;
+        LockSupport.unpark(ioThread);
+        try{
+            ioThread.join();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while closing");
+        }finally{
+            channel.close();
+        }
+        if(failure != null) throw failure;
+    }
+
+    // helper functions....
+    private void run(){
+        try{
+            while(true){
+                // read before draining: lines offered before close() are drained below
+                boolean stopping = !running;
+                int drained = drain();
+                long now = System.nanoTime();
+                long target = flushTarget;
+                boolean barrier = target > writtenUpTo && head >= target;
+                if(batch.position() > 0 && (stopping || barrier || now - firstPendingNanos >= maxDelayNanos)){
+                    writeBatch();
+                }
+                if(batch.position() == 0 && writtenUpTo != head){
+                    markWritten();
+                }
+                if(stopping) break;
+                if(drained > 0) continue;
+                if(target > writtenUpTo){
+                    // a producer claimed a slot but has not published it yet
+                    Thread.onSpinWait();
+                    continue;
+                }
+                sleeping = true;
+                if(isEmpty() && running && flushTarget <= writtenUpTo){
+                    if(batch.position() > 0){
+                        LockSupport.parkNanos(firstPendingNanos + maxDelayNanos - now);
+                    }else{
+                        LockSupport.park();
+                    }
+                }
+                sleeping = false;
+            }
+            encoder.encode(CharBuffer.allocate(0), batch, true);
+            encoder.flush(batch);
+            writeBatch();
+        }catch (IOException e){
+            failure = e;
+        }catch (RuntimeException | Error e){
+            failure = new IOException("batching writer failed", e);
+        }finally{
+            markWritten();
+        }
+    }
+
+    // moves every published line into the batch buffer, returns the number of lines
+    private int drain() throws IOException {
+        int count = 0;
+        long h = head;
+        while(true){
+            int index = (int) h & mask;
+            if(sequences.get(index) != h + 1) break;
+            String line = slots[index];
+            slots[index] = null;
+            // free the slot for the producer that comes around the ring next time
+            sequences.set(index, h + mask + 1);
+            h++;
+            head = h;
+            encode(line);
+            count++;
+        }
+        return count;
+    }
+
+    private void encode(String line) throws IOException {
+        if(batch.position() == 0){
+            firstPendingNanos = System.nanoTime();
+        }
+        CharBuffer in = CharBuffer.wrap(line);
+        while(true){
+            CoderResult result = encoder.encode(in, batch, false);
+            if(!result.isOverflow()) break;
+            // size policy: the batch is full
+            writeBatch();
+            firstPendingNanos = System.nanoTime();
+        }
+        if(!batch.hasRemaining()){
+            writeBatch();
+            firstPendingNanos = System.nanoTime();
+        }
+        batch.put((byte) '\n');
+    }
+
+    private boolean isEmpty(){
+        long h = head;
+        return sequences.get((int) h & mask) != h + 1;
+    }
+
+    private void writeBatch() throws IOException {
+        batch.flip();
+        while(batch.hasRemaining()){
+            channel.write(batch);
+        }
+        batch.clear();
+        batches++;
+    }
+
+    // lines up to head are in the channel now, wake flush() callers
+    private void markWritten(){
+        writtenUpTo = head;
+        synchronized(flushLock){
+            flushLock.notifyAll();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path file = Path.of("batched.log");
+        Files.deleteIfExists(file);
+        int threads = 8;
+        int lines = 100_000;
+        try(BatchingWriter writer = BatchingWriter.open(file, StandardCharsets.UTF_8)){
+            Thread[] producers = new Thread[threads];
+            long start = System.nanoTime();
+            for(int t = 0; t < threads; t++){
+                int id = t;
+                producers[t] = new Thread(() -> {
+                    for(int i = 0; i < lines; i++){
+                        String line = "thread " + id + " record " + i;
+                        // a full ring means the disk can't keep up: back off a bit
+                        while(!writer.offer(line)){
+                            Thread.yield();
+                        }
+                    }
+                });
+                producers[t].start();
+            }
+            for(Thread producer: producers){
+                producer.join();
+            }
+            long offered = System.nanoTime() - start;
+            writer.flush();
+            System.out.println(threads * lines + " lines offered in " + offered / 1_000_000 + "ms, on disk after "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms in " + writer.batches() + " writes ("
+                    + writer.dropped() + " offers rejected while the ring was full)");
+        }
+        System.out.println("file size: " + Files.size(file) + " bytes");
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,209 @@
+package javaDemo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Reading files in chunks with NIO (FileChannel + ByteBuffer):
+    - fs.read() returns ONE byte per call, so a 1 GB file means a billion calls
+    - (char) byte is only correct for ASCII; a UTF-8 character like 'é' or '₹'
+      is 2-3 bytes and gets printed as garbage
+    - FileChannel reads a whole chunk (64 KB by default) per call into a
+      direct ByteBuffer that is allocated once and reused for the whole file
+    - Big files are memory-mapped instead: the OS maps the file into memory and
+      we hand out slices of it, no bytes are copied at all
+
+    Decoding text:
+    - A CharsetDecoder turns a whole chunk of bytes into chars at once
+    - A multi-byte character can be split between two chunks; the decoder
+      stops before the incomplete bytes, which are carried over to the next chunk
+
+    The ByteBuffer / CharBuffer given to a handler is reused for the next chunk,
+    so handlers must copy anything they want to keep.
+*/
+public class ChunkedFileReader implements AutoCloseable {
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    // files at least this big are memory-mapped instead of read
+    static final long MMAP_THRESHOLD = 16L * 1024 * 1024;
+    // one mapping can be at most 2 GB, big files are mapped region by region
+    private static final long MAX_REGION = 1L << 30;
+
+    public interface ChunkHandler {
+        void onChunk(ByteBuffer chunk) throws IOException;
+    }
+
+    public interface TextHandler {
+        void onText(CharBuffer text) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private ByteBuffer buffer;
+
+    public ChunkedFileReader(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedFileReader(Path file, int chunkSize) throws IOException {
+        if(chunkSize <= 0){
+            throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.chunkSize = chunkSize;
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    // calls handler with consecutive read-only chunks covering the whole file
+    public void forEachChunk(ChunkHandler handler) throws IOException {
+        forEachChunk(0, channel.size(), handler);
+    }
+
+    // calls handler with chunks covering [from, to) of the file
+    public void forEachChunk(long from, long to, ChunkHandler handler) throws IOException {
+        if(from < 0 || from > to){
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ")");
+        }
+        to = Math.min(to, channel.size());
+        if(to - from >= MMAP_THRESHOLD){
+            mapped(from, to, handler);
+        }else{
+            buffered(from, to, handler);
+        }
+    }
+
+    public void forEachText(TextHandler handler) throws IOException {
+        forEachText(StandardCharsets.UTF_8, handler);
+    }
+
+    // decodes the file in bulk, malformed input is replaced with '�'
+    public void forEachText(Charset charset, TextHandler handler) throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // at least room for a surrogate pair, even with tiny chunks
+        CharBuffer text = CharBuffer.allocate(Math.max(chunkSize, 64));
+        // bytes of a character that was cut at the end of the previous chunk
+        ByteBuffer carry = ByteBuffer.allocate(16);
+
+        forEachChunk(chunk -> {
+            if(carry.position() > 0){
+                int take = Math.min(chunk.remaining(), carry.remaining());
+                ByteBuffer head = chunk.duplicate();
+                head.limit(head.position() + take);
+                carry.put(head);
+                carry.flip();
+                decode(decoder, carry, text, false, handler);
+                int left = carry.remaining();
+                if(left <= take){
+                    // the rest of the carried bytes are still in chunk
+                    chunk.position(chunk.position() + take - left);
+                    carry.clear();
+                }else{
+                    chunk.position(chunk.position() + take);
+                    carry.compact();
+                }
+            }
+            decode(decoder, chunk, text, false, handler);
+            if(chunk.hasRemaining()){
+                carry.put(chunk);
+            }
+        });
+
+        carry.flip();
+        decode(decoder, carry, text, true, handler);
+        while(decoder.flush(text) == CoderResult.OVERFLOW){
+            emit(text, handler);
+        }
+        emit(text, handler);
+    }
+
+    // reads the whole file as a String
+    public String readString(Charset charset) throws IOException {
+        StringBuilder sb = new StringBuilder((int) Math.min(channel.size(), Integer.MAX_VALUE - 8));
+        forEachText(charset, sb::append);
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // helper functions....
+    private void buffered(long from, long to, ChunkHandler handler) throws IOException {
+        if(buffer == null){
+            buffer = ByteBuffer.allocateDirect(chunkSize);
+        }
+        long position = from;
+        while(position < to){
+            buffer.clear();
+            buffer.limit((int) Math.min(chunkSize, to - position));
+            int read = channel.read(buffer, position);
+            if(read < 0) break;
+            position += read;
+            buffer.flip();
+            handler.onChunk(buffer.asReadOnlyBuffer());
+        }
+    }
+
+    private void mapped(long from, long to, ChunkHandler handler) throws IOException {
+        for(long region = from; region < to; region += MAX_REGION){
+            long length = Math.min(MAX_REGION, to - region);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, region, length);
+            for(int offset = 0; offset < length; offset += chunkSize){
+                int len = (int) Math.min(chunkSize, length - offset);
+                handler.onChunk(map.slice(offset, len));
+            }
+        }
+    }
+
+    private static void decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out,
+                               boolean endOfInput, TextHandler handler) throws IOException {
+        while(true){
+            CoderResult result = decoder.decode(in, out, endOfInput);
+            if(result.isOverflow()){
+                emit(out, handler);
+            }else{
+                return;
+            }
+        }
+    }
+
+    private static void emit(CharBuffer out, TextHandler handler) throws IOException {
+        out.flip();
+        if(out.hasRemaining()){
+            handler.onText(out);
+        }
+        out.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        // counting lines of a file, chunk by chunk
+        try(ChunkedFileReader reader = new ChunkedFileReader(Path.of("example.txt"))){
+            long[] lines = {0};
+            reader.forEachChunk(chunk -> {
+                while(chunk.hasRemaining()){
+                    if(chunk.get() == '\n') lines[0]++;
+                }
+            });
+            System.out.println("example.txt: " + reader.size() + " bytes, " + lines[0] + " lines");
+
+            // printing the text, decoded in bulk
+            reader.forEachText(StandardCharsets.UTF_8, System.out::append);
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package javaDemo;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Walking big directory trees:
+    - File.list() only returns names; then length(), isFile(), isDirectory()
+      each ask the OS again, so 3 system calls per entry on top of the listing
+    - DirectoryWalker asks ONCE per entry: Files.readAttributes(..., BasicFileAttributes)
+      returns size, type and times together
+    - every directory is a task on a ForkJoinPool: a thread that runs out of
+      work steals subdirectories from the others (work stealing), so a wide
+      tree is listed by all threads at once
+    - entries are handed to the EntryHandler as soon as their directory is
+      read (streaming), nothing waits for the whole tree
+
+    Cache (optional):
+    - the listing of a directory is kept together with the directory's
+      last-modified time; a directory's mtime changes when an entry is
+      added, removed or renamed in it
+    - the next walk reads only the attributes of each directory: unchanged
+      directories are served from the cache, only changed ones are listed again
+    - a file edited in place does NOT change its directory's mtime, so sizes and
+      times of files in an unchanged directory are the ones of the last listing
+    - a listing taken less than 2 s after the directory changed is not trusted
+      (a change in the same mtime tick would be invisible)
+    - when a directory is listed again, subdirectories that are no longer in
+      it are dropped from the cache with everything below them; nothing else
+      is removed, so walks never evict each other's entries
+
+    The handler is called from several threads at the same time. Several
+    walk() calls may run at once, also on the same or nested roots; they
+    share the pool and the cache.
+*/
+public class DirectoryWalker implements AutoCloseable {
+    // file systems with coarse mtimes (FAT: 2 s) can hide a change in the same tick
+    private static final long MTIME_GRANULARITY_MILLIS = 2000;
+
+    public interface EntryHandler {
+        void onEntry(Entry entry);
+
+        // a directory could not be read (permissions, removed during the walk, ...)
+        default void onError(Path path, IOException e){
+        }
+    }
+
+    public static final class Entry {
+        public final Path path;
+        public final long size;
+        public final long lastModifiedMillis;
+        public final boolean directory;
+        public final boolean regularFile;
+        public final boolean symbolicLink;
+
+        Entry(Path path, BasicFileAttributes attrs){
+            this.path = path;
+            this.size = attrs.size();
+            this.lastModifiedMillis = attrs.lastModifiedTime().toMillis();
+            this.directory = attrs.isDirectory();
+            this.regularFile = attrs.isRegularFile();
+            this.symbolicLink = attrs.isSymbolicLink();
+        }
+
+        @Override
+        public String toString(){
+            return path + (directory ? "/" : " (" + size + " bytes)");
+        }
+    }
+
+    public static final class Stats {
+        public final long entries;
+        public final long directoriesListed;
+        public final long directoriesCached;
+        public final long errors;
+
+        Stats(long entries, long directoriesListed, long directoriesCached, long errors){
+            this.entries = entries;
+            this.directoriesListed = directoriesListed;
+            this.directoriesCached = directoriesCached;
+            this.errors = errors;
+        }
+
+        @Override
+        public String toString(){
+            return entries + " entries, " + directoriesListed + " directories listed, "
+                    + directoriesCached + " from cache, " + errors + " errors";
+        }
+    }
+
+    private static final class Listing {
+        final long directoryMtime;
+        final long listedAt;
+        final Entry[] entries;
+
+        Listing(long directoryMtime, long listedAt, Entry[] entries){
+            this.directoryMtime = directoryMtime;
+            this.listedAt = listedAt;
+            this.entries = entries;
+        }
+
+        boolean validFor(long mtime){
+            return mtime == directoryMtime && listedAt - directoryMtime >= MTIME_GRANULARITY_MILLIS;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final Map<Path, Listing> cache;
+
+    public DirectoryWalker(){
+        this(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    // listing is blocking I/O, so more threads than cores usually helps
+    public DirectoryWalker(int parallelism, boolean cacheListings){
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = cacheListings ? new ConcurrentHashMap<>() : null;
+    }
+
+    // calls handler for every entry below root (not root itself), symbolic links are not followed
+    public Stats walk(Path root, EntryHandler handler) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        if(!attrs.isDirectory()){
+            throw new IOException("not a directory: " + root);
+        }
+        Counters counters = new Counters();
+        pool.invoke(new DirectoryTask(root, attrs.lastModifiedTime().toMillis(), handler, counters));
+        return new Stats(counters.entries.sum(), counters.listed.sum(), counters.cached.sum(), counters.errors.sum());
+    }
+
+    // collects every entry, for small trees
+    public List<Entry> list(Path root) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        walk(root, entry -> {
+            synchronized(entries){
+                entries.add(entry);
+            }
+        });
+        return entries;
+    }
+
+    public int cachedDirectories(){
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Override
+    public void close(){
+        pool.shutdown();
+    }
+
+    // helper functions....
+    private static final class Counters {
+        final LongAdder entries = new LongAdder();
+        final LongAdder listed = new LongAdder();
+        final LongAdder cached = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final long mtime;
+        private final EntryHandler handler;
+        private final Counters counters;
+
+        DirectoryTask(Path dir, long mtime, EntryHandler handler, Counters counters){
+            this.dir = dir;
+            this.mtime = mtime;
+            this.handler = handler;
+            this.counters = counters;
+        }
+
+        @Override
+        protected void compute(){
+            Entry[] entries;
+            boolean fromCache;
+            try{
+                Listing listing = cache == null ? null : cache.get(dir);
+                fromCache = listing != null && listing.validFor(mtime);
+                if(fromCache){
+                    entries = listing.entries;
+                    counters.cached.increment();
+                }else{
+                    long listedAt = System.currentTimeMillis();
+                    entries = read(dir);
+                    counters.listed.increment();
+                    if(cache != null){
+                        cache.put(dir, new Listing(mtime, listedAt, entries));
+                        if(listing != null) forgetRemoved(listing.entries, entries);
+                    }
+                }
+            }catch (IOException e){
+                if(cache != null && e instanceof NoSuchFileException) forget(dir);
+                counters.errors.increment();
+                handler.onError(dir, e);
+                return;
+            }
+
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            for(Entry entry: entries){
+                counters.entries.increment();
+                handler.onEntry(entry);
+                if(entry.directory){
+                    long childMtime = entry.lastModifiedMillis;
+                    if(fromCache){
+                        // the cached mtime of a subdirectory is old, ask again (one call per directory)
+                        try{
+                            childMtime = Files.readAttributes(entry.path, BasicFileAttributes.class,
+                                    LinkOption.NOFOLLOW_LINKS).lastModifiedTime().toMillis();
+                        }catch (IOException e){
+                            counters.errors.increment();
+                            handler.onError(entry.path, e);
+                            continue;
+                        }
+                    }
+                    subdirectories.add(new DirectoryTask(entry.path, childMtime, handler, counters));
+                }
+            }
+            invokeAll(subdirectories);
+        }
+    }
+
+    // subdirectories of the old listing that the new one doesn't have any more
+    private void forgetRemoved(Entry[] before, Entry[] now){
+        Set<Path> directories = new HashSet<>();
+        for(Entry entry: now){
+            if(entry.directory) directories.add(entry.path);
+        }
+        for(Entry entry: before){
+            if(entry.directory && !directories.contains(entry.path)) forget(entry.path);
+        }
+    }
+
+    // dir and everything below it
+    private void forget(Path dir){
+        cache.keySet().removeIf(path -> path.startsWith(dir));
+    }
+
+    // one listing + one attribute read per entry
+    private static Entry[] read(Path dir) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try(DirectoryStream<Path> children = Files.newDirectoryStream(dir)){
+            for(Path child: children){
+                try{
+                    entries.add(new Entry(child, Files.readAttributes(child, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS)));
+                }catch (NoSuchFileException e){
+                    // deleted between the listing and the attribute read
+                }
+            }
+        }
+        return entries.toArray(new Entry[0]);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : ".");
+        try(DirectoryWalker walker = new DirectoryWalker()){
+            LongAdder bytes = new LongAdder();
+            long start = System.nanoTime();
+            Stats stats = walker.walk(root, entry -> {
+                if(entry.regularFile) bytes.add(entry.size);
+            });
+            System.out.println("first walk:  " + stats + ", " + bytes.sum() + " bytes in "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+            // second walk: only directories whose mtime changed are listed again
+            bytes.reset();
+            start = System.nanoTime();
+            stats = walker.walk(root, entry -> {
+                if(entry.regularFile) bytes.add(entry.size);
+            });
+            System.out.println("second walk: " + stats + ", " + bytes.sum() + " bytes in "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+}
@@ -2,6 +2,9 @@ package javaDemo;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 public class FileClass {
     public static void main(String[] args) throws IOException {
@@ -48,6 +51,31 @@ public class FileClass {
         File file = new File("sharad.txt");
         System.out.println("File size: " + file.length() + "bytes");
 
+        // isFile(), isDirectory(), length() above are one system call EACH;
+        // readAttributes gets all of them with one call
+        try{
+            BasicFileAttributes attrs = Files.readAttributes(Path.of("sharad.txt"), BasicFileAttributes.class);
+            System.out.println("file: " + attrs.isRegularFile() + ", dir: " + attrs.isDirectory() + ", size: " + attrs.size());
+        }catch (IOException e){
+            System.out.println(e.getMessage());
+        }
+
+        // Walking a whole tree: directories are listed in parallel and the
+        // listings are cached, so walking again only re-lists changed directories
+        try(DirectoryWalker walker = new DirectoryWalker()){
+            long[] totals = new long[2];
+            DirectoryWalker.Stats stats = walker.walk(Path.of("."), entry -> {
+                if(entry.regularFile){
+                    synchronized(totals){
+                        totals[0]++;
+                        totals[1] += entry.size;
+                    }
+                }
+            });
+            System.out.println(totals[0] + " files, " + totals[1] + " bytes (" + stats + ")");
+            System.out.println("again: " + walker.walk(Path.of("."), entry -> {}));
+        }
+
         // Creates a single directory or multiple directories.
         File dir1 = new File("new_folder");
         File dir2 = new File("parent_dir/child_dir");
@@ -0,0 +1,275 @@
+package javaDemo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    Line index for random access into big text files:
+    - A Reader / BufferedReader can only go forward, so reading line 10,000,000
+      means reading (and decoding) the 9,999,999 lines before it
+    - LineIndex scans the file ONCE and stores where every line starts in a
+      plain long[] (8 bytes per line, no objects per line)
+    - After that, line N is just offsets[N] .. offsets[N + 1] and is read
+      straight from the memory-mapped file, no matter how big the file is
+
+    Persisting:
+    - save() writes the offsets next to the file as <file>.lineidx
+    - open() reuses that index if the file still has the same size and
+      last-modified time, otherwise it scans the file again
+
+    Line content is returned without the '\n' (and without a '\r' before it).
+*/
+public class LineIndex implements AutoCloseable {
+    static final String SUFFIX = ".lineidx";
+    private static final int MAGIC = 0x4C494458;   // "LIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8;
+    // mapped window per region; the extra OVERLAP bytes let a line that starts
+    // near the end of a region still be sliced from that region
+    private static final long REGION = 1L << 30;
+    private static final long OVERLAP = 1L << 20;
+
+    public interface LineHandler {
+        void onLine(long lineNumber, ByteBuffer line) throws IOException;
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long lastModified;
+    // offsets[i] = start of line i, offsets[lineCount] = end of the last line
+    private final long[] offsets;
+    private final int lineCount;
+    private final MappedByteBuffer[] regions;
+
+    private LineIndex(Path file, FileChannel channel, long fileSize, long lastModified, long[] offsets, int lineCount){
+        this.file = file;
+        this.channel = channel;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.offsets = offsets;
+        this.lineCount = lineCount;
+        this.regions = new MappedByteBuffer[(int) ((fileSize + REGION - 1) / REGION)];
+    }
+
+    // loads <file>.lineidx if it is still valid, otherwise builds a new index
+    public static LineIndex open(Path file) throws IOException {
+        LineIndex index = load(file);
+        return index != null ? index : build(file);
+    }
+
+    // scans the whole file once
+    public static LineIndex build(Path file) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        long[][] offsets = {new long[1024]};
+        int[] count = {1};           // offsets[0] = 0, the first line starts at byte 0
+        long[] position = {0};
+
+        long size;
+        try(ChunkedFileReader reader = new ChunkedFileReader(file)){
+            size = reader.size();
+            reader.forEachChunk(chunk -> {
+                long base = position[0] - chunk.position();
+                for(int i = chunk.position(), end = chunk.limit(); i < end; i++){
+                    if(chunk.get(i) == '\n'){
+                        if(count[0] == offsets[0].length){
+                            offsets[0] = Arrays.copyOf(offsets[0], grow(offsets[0].length));
+                        }
+                        offsets[0][count[0]++] = base + i + 1;
+                    }
+                }
+                position[0] += chunk.remaining();
+            });
+        }
+
+        long[] starts = offsets[0];
+        int lines = count[0];
+        if(starts[lines - 1] == size){
+            // file ends with '\n': no empty line after it
+            lines--;
+        }else{
+            if(lines == starts.length){
+                starts = Arrays.copyOf(starts, lines + 1);
+            }
+            starts[lines] = size;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new LineIndex(file, channel, size, lastModified, starts, lines);
+    }
+
+    public long lineCount(){
+        return lineCount;
+    }
+
+    public Path file(){
+        return file;
+    }
+
+    // bytes of line n, a slice of the mapped file when possible (do not keep it)
+    public ByteBuffer lineBytes(long n) throws IOException {
+        if(n < 0 || n >= lineCount){
+            throw new IndexOutOfBoundsException("Line: " + n + ", Lines: " + lineCount);
+        }
+        long start = offsets[(int) n];
+        long end = offsets[(int) n + 1];
+        if(end > start && byteAt(end - 1) == '\n') end--;
+        if(end > start && byteAt(end - 1) == '\r') end--;
+        return slice(start, end);
+    }
+
+    public String line(long n) throws IOException {
+        ByteBuffer bytes = lineBytes(n);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    // lines [from, to)
+    public List<String> lines(long from, long to) throws IOException {
+        List<String> result = new ArrayList<>((int) Math.max(0, Math.min(to, lineCount) - from));
+        forEachLine(from, to, (n, bytes) -> result.add(StandardCharsets.UTF_8.decode(bytes).toString()));
+        return result;
+    }
+
+    public void forEachLine(long from, long to, LineHandler handler) throws IOException {
+        if(from < 0 || from > to){
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ")");
+        }
+        to = Math.min(to, lineCount);
+        for(long n = from; n < to; n++){
+            handler.onLine(n, lineBytes(n));
+        }
+    }
+
+    // writes the index to <file>.lineidx
+    public void save() throws IOException {
+        Path indexFile = indexFileOf(file);
+        try(FileChannel out = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(fileSize).putLong(lastModified).putLong(lineCount);
+            for(int i = 0; i <= lineCount; i++){
+                if(buffer.remaining() < Long.BYTES){
+                    writeFully(out, buffer);
+                }
+                buffer.putLong(offsets[i]);
+            }
+            writeFully(out, buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // helper functions....
+    static Path indexFileOf(Path file){
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    private static LineIndex load(Path file) throws IOException {
+        Path indexFile = indexFileOf(file);
+        if(!Files.exists(indexFile)) return null;
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        try(FileChannel in = FileChannel.open(indexFile, StandardOpenOption.READ)){
+            if(in.size() < HEADER_BYTES) return null;
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if(map.getInt() != MAGIC || map.getInt() != VERSION) return null;
+            if(map.getLong() != size || map.getLong() != lastModified) return null;
+            long lines = map.getLong();
+            if(lines < 0 || lines >= Integer.MAX_VALUE || map.remaining() != (lines + 1) * Long.BYTES) return null;
+            long[] offsets = new long[(int) lines + 1];
+            LongBuffer stored = map.asLongBuffer();
+            stored.get(offsets);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new LineIndex(file, channel, size, lastModified, offsets, (int) lines);
+        }
+    }
+
+    private static int grow(int length){
+        int grown = length + (length >> 1);
+        if(grown < 0 || grown > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("too many lines for one index");
+        }
+        return grown;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private MappedByteBuffer region(int r) throws IOException {
+        MappedByteBuffer map = regions[r];
+        if(map == null){
+            long start = r * REGION;
+            long length = Math.min(REGION + OVERLAP, fileSize - start);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            regions[r] = map;
+        }
+        return map;
+    }
+
+    private byte byteAt(long position) throws IOException {
+        int r = (int) (position / REGION);
+        return region(r).get((int) (position - r * REGION));
+    }
+
+    private ByteBuffer slice(long start, long end) throws IOException {
+        int r = (int) (start / REGION);
+        long regionStart = r * REGION;
+        MappedByteBuffer map = region(r);
+        if(end - regionStart <= map.capacity()){
+            return map.slice((int) (start - regionStart), (int) (end - start));
+        }
+        // a line longer than OVERLAP crossing a region boundary: copy it
+        if(end - start > Integer.MAX_VALUE){
+            throw new IllegalStateException("line is longer than 2 GB");
+        }
+        ByteBuffer copy = ByteBuffer.allocate((int) (end - start));
+        while(copy.hasRemaining()){
+            if(channel.read(copy, start + copy.position()) < 0) break;
+        }
+        return copy.flip();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of("lines.txt");
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+            for(int i = 0; i < 1_000_000; i++){
+                writer.write("line number " + i);
+                writer.newLine();
+            }
+        }
+
+        long start = System.nanoTime();
+        try(LineIndex index = LineIndex.build(file)){
+            System.out.println("indexed " + index.lineCount() + " lines in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            index.save();
+            System.out.println("line 123456: " + index.line(123456));
+        }
+
+        // second open reuses lines.txt.lineidx instead of scanning again
+        start = System.nanoTime();
+        try(LineIndex index = LineIndex.open(file)){
+            System.out.println("reopened in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            System.out.println("lines 999998..999999: " + index.lines(999_998, 1_000_000));
+        }
+        Files.delete(indexFileOf(file));
+        Files.delete(file);
+    }
+}
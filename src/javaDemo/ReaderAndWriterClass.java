@@ -34,7 +34,10 @@ package javaDemo;
 import java.io.FileWriter;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 public class ReaderAndWriterClass {
     public static void main(String[] args){
@@ -42,6 +45,7 @@ public class ReaderAndWriterClass {
         // 1. Reader Class Methods (With Examples)
         // printing each character....
         // StringReader is used here to simulate a stream. It reads characters one by one.
+        // one call per char is fine for "Hello", for big text read blocks (see 2. and 8.)
         try(Reader reader = new StringReader("Hello")){
             int ch;
             while((ch = reader.read()) != -1){
@@ -72,8 +76,10 @@ public class ReaderAndWriterClass {
         }
 
         // 4. Writer Class Methods (With Examples)
+        // FileWriter without a charset uses the platform default encoding, so
+        // always pass one (UTF-8 here)
         // Writes a single character.
-        try(Writer writer = new FileWriter("sharad.txt")){
+        try(Writer writer = new FileWriter("sharad.txt", StandardCharsets.UTF_8)){
             // we are writing an character
             writer.write(65);
             System.out.println("Single character written.");
@@ -82,7 +88,7 @@ public class ReaderAndWriterClass {
         }
 
         // 5. void write(char[] cbuf)
-        try(Writer writer = new FileWriter("sharad.txt")){
+        try(Writer writer = new FileWriter("sharad.txt", StandardCharsets.UTF_8)){
             char[] data = {'S', 'H', 'A', 'R', 'A', 'D'};
             writer.write(data);
             System.out.println("Character array written.");
@@ -91,7 +97,7 @@ public class ReaderAndWriterClass {
         }
 
         // 6. Writes an entire string.
-        try (Writer writer = new FileWriter("sharad.txt")) {
+        try (Writer writer = new FileWriter("sharad.txt", StandardCharsets.UTF_8)) {
             writer.write("Java Writer Example");
             System.out.println("String written successfully.");
         } catch (Exception e) {
@@ -104,13 +110,31 @@ public class ReaderAndWriterClass {
         // Instead, it goes into an internal buffer in memory for performance reasons.
         // writer.write(...) → puts data into the buffer.
         // writer.flush() → forces Java to immediately push everything from the buffer into the actual file.
-        try (Writer writer = new FileWriter("sharad.txt")) {
+        try (Writer writer = new FileWriter("sharad.txt", StandardCharsets.UTF_8)) {
             writer.write("Flushed output.");
             writer.flush();
             System.out.println("Output flushed.");
         } catch (Exception e) {
             System.out.println(e.getMessage());
         }
+
+        // 8. Copying text from any Reader to any Writer in 64K-char blocks,
+        // the block is reused (one per thread), see TextCopier
+        try(Reader reader = new StringReader("copy me in blocks"); StringWriter writer = new StringWriter()){
+            long chars = TextCopier.copy(reader, writer);
+            System.out.println("Copied " + chars + " chars: " + writer);
+        }catch (Exception e){
+            System.out.println(e.getMessage());
+        }
+
+        // same charset on both sides: the bytes are copied without decoding
+        try{
+            long bytes = TextCopier.copy(Path.of("sharad.txt"), StandardCharsets.UTF_8,
+                    Path.of("sharad-copy.txt"), StandardCharsets.UTF_8);
+            System.out.println("Copied " + bytes + " bytes to sharad-copy.txt");
+        }catch (Exception e){
+            System.out.println(e.getMessage());
+        }
     }
 }
 
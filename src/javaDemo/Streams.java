@@ -25,7 +25,14 @@ package javaDemo;
         - Example: FileReader, FileWriter.
 */
 
+import BasicPackage.FastFormat;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 // we are implementing an interface
 // The class whose objects are to be serialized must implement the Serializable interface.
@@ -75,13 +82,24 @@ public class Streams {
 
         // fileInputStream
         try(FileInputStream fs = new FileInputStream("example.txt")){
-            int data__;
-            // Reading byte by byte
+            // fs.read() reads byte by byte (one call per byte) and (char) breaks
+            // multi-byte UTF-8, so read a whole block per call instead
             // reading util we got -1 (termination)
-            // bais.reset(); to again start from 0....
-            while((data__ = fs.read()) != -1){
-                System.out.print((char) data__);
+            byte[] block = new byte[8192];
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            int read;
+            while((read = fs.read(block)) != -1){
+                content.write(block, 0, read);
             }
+            System.out.println(content.toString(StandardCharsets.UTF_8));
+        }catch (Exception e){
+            System.out.println("error while reading file: " + e.getMessage());
+        }
+
+        // FileChannel: 64 KB per read into a reused buffer (or mmap for big
+        // files), decoded to chars in bulk, see ChunkedFileReader
+        try(ChunkedFileReader reader = new ChunkedFileReader(Path.of("example.txt"))){
+            reader.forEachText(StandardCharsets.UTF_8, System.out::append);
             System.out.println();
         }catch (Exception e){
             System.out.println("error while reading file: " + e.getMessage());
@@ -169,6 +187,38 @@ public class Streams {
             System.out.println(e.getMessage());
         }
 
+        // StudentCodec: only the values are written (id + UTF-8 name), no class
+        // descriptors and no reflection, and reading can only create Students
+        try{
+            List<Student> batch = new ArrayList<>();
+            for(int i = 0; i < 100_000; i++){
+                batch.add(new Student(i, "student-" + i));
+            }
+            StudentCodec.writeAll(Path.of("students.bin"), batch);
+            List<Student> loaded = StudentCodec.readAll(Path.of("students.bin"));
+            System.out.println("Read back " + loaded.size() + " students, last: " + loaded.get(loaded.size() - 1).name);
+            System.out.println("Bytes per record: " + new File("students.bin").length() / (double) loaded.size());
+
+            // lazy scan: records are decoded one by one into ONE reused StudentRecord,
+            // and a parallel stream splits the file by blocks
+            try(Stream<StudentRecord> records = StudentCodec.stream(Path.of("students.bin"))){
+                long matches = records.parallel().filter(r -> r.name().charAt(r.nameLength() - 1) == '7').count();
+                System.out.println("Names ending with 7: " + matches);
+            }
+        }catch (Exception e){
+            System.out.println(e.getMessage());
+        }
+
+        // StudentLog: a continuous stream of records, appended to segment files
+        // and fsync'ed in groups (commit), see StudentLog.main for more
+        try(StudentLog log = StudentLog.open(Path.of("students-log"))){
+            long last = log.append(new Student(124, "poddar"));
+            log.commit(last);
+            System.out.println("Log has " + log.recordCount() + " records, last: " + log.get(last).name);
+        }catch (Exception e){
+            System.out.println(e.getMessage());
+        }
+
         // 1. Use when you need to save and restore the complete state of an object.
         // 2. Use for sending objects over sockets (network communication).
         // 3. Makes storing and retrieving complex data structures (like maps, lists of objects) very convenient.
@@ -179,11 +229,14 @@ public class Streams {
         // capabilities to reduce the number of disk accesses, making I/O operations more efficient
 
         // Buffered is just an wrapper like a cache
-        try(BufferedInputStream bis = new BufferedInputStream(new FileInputStream("sharad.txt"))){
+        // bis.read() is cheap here (served from the buffer), but decoding must
+        // still happen on whole characters, so wrap it in a Reader with a charset
+        try(Reader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream("sharad.txt")), StandardCharsets.UTF_8)){
+            char[] chars = new char[1024];
             int _data_;
-            while((_data_ = bis.read()) != -1){
-                // Print each character read from the file
-                System.out.print((char) _data_);
+            while((_data_ = reader.read(chars)) != -1){
+                // Print each block of characters read from the file
+                System.out.print(new String(chars, 0, _data_));
             }
             System.out.println();
         }catch (Exception e){
@@ -236,6 +289,9 @@ public class Streams {
             ps.println("Line 1");
             ps.println("line 2");
             ps.printf("Name: %s, Age: %d", "Alice", 25);
+            // printf parses the format and boxes 25 on every call, a compiled
+            // FastFormat writes the same text from a reused buffer
+            FastFormat.compile("%nName: %s, Age: %d%n").newLine().begin().arg("Bob").arg(30).writeTo(ps);
             ps.write(65);
 
             // Manually flush to ensure data is written immediately
@@ -246,5 +302,25 @@ public class Streams {
         }catch (Exception e){
             System.out.println(e.getMessage());
         }
+
+        // many threads printing small lines: instead of a PrintStream per write,
+        // BatchingWriter queues the lines without locking and one background
+        // thread writes them in 64 KB batches
+        try(BatchingWriter writer = BatchingWriter.open(Path.of("output.txt"), StandardCharsets.UTF_8)){
+            Thread[] threads = new Thread[4];
+            for(int t = 0; t < threads.length; t++){
+                int id = t;
+                threads[t] = new Thread(() -> writer.offer("Name: Alice, Thread: " + id));
+                threads[t].start();
+            }
+            for(Thread thread: threads){
+                thread.join();
+            }
+            // barrier: returns once all 4 lines are in output.txt
+            writer.flush();
+            System.out.println("batched lines written: " + writer.written());
+        }catch (Exception e){
+            System.out.println(e.getMessage());
+        }
     }
 }
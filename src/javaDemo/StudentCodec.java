@@ -0,0 +1,333 @@
+package javaDemo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+    Compact binary format for Student records (instead of ObjectOutputStream):
+    - ObjectOutputStream writes class descriptors, field names and type info,
+      uses reflection for every object, and readObject() can be tricked into
+      creating any Serializable class found on the class path
+    - Here the "schema" is fixed in code, only the values are written:
+
+        record = [int id][unsigned short nameLength][name as UTF-8 bytes]
+
+    - Records are grouped into blocks, so the reader can pull a whole block
+      with one read call and a block can be skipped without decoding it:
+
+        block  = [int payloadBytes][int recordCount][record][record]...
+
+    - Writer and Reader each own ONE buffer that is reused for every block,
+      names are encoded to UTF-8 directly into it (no String.getBytes())
+    - stream() / Reader.next(StudentRecord) decode lazily into one reused
+      StudentRecord instead of creating a Student per record
+*/
+class StudentCodec {
+    static final int BLOCK_HEADER_BYTES = 8;
+    static final int MAX_NAME_BYTES = 0xFFFF;
+    // [int id][unsigned short nameLength] of a record with an empty name
+    static final int MIN_RECORD_BYTES = 6;
+    // a block header announcing more is corrupt (or not a StudentCodec file)
+    static final int MAX_BLOCK_BYTES = 64 * 1024 * 1024;
+    // big enough for one record with the longest possible name (3 bytes per char)
+    static final int DEFAULT_BLOCK_BYTES = 256 * 1024;
+
+    private StudentCodec(){}
+
+    static void writeAll(Path file, Iterable<Student> students) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            Writer writer = new Writer(channel)){
+            for(Student student: students){
+                writer.write(student);
+            }
+        }
+    }
+
+    static List<Student> readAll(Path file) throws IOException {
+        List<Student> students = new ArrayList<>();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            new Reader(channel).forEach(students::add);
+        }
+        return students;
+    }
+
+    // lazy, splittable stream over the records of a file; close the stream to close the file
+    static Stream<StudentRecord> stream(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try{
+            return StreamSupport.stream(StudentSpliterator.of(channel), false)
+                    .onClose(() -> {
+                        try{
+                            channel.close();
+                        }catch (IOException e){
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        }catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    static final class Writer implements AutoCloseable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer block;
+        private int recordCount;
+        private long recordsWritten;
+        private long bytesWritten;
+
+        Writer(WritableByteChannel channel){
+            this(channel, DEFAULT_BLOCK_BYTES);
+        }
+
+        Writer(WritableByteChannel channel, int blockBytes){
+            if(blockBytes < BLOCK_HEADER_BYTES + 6 + 3 * MAX_NAME_BYTES){
+                throw new IllegalArgumentException("block too small for the longest record: " + blockBytes);
+            }
+            if(blockBytes > BLOCK_HEADER_BYTES + MAX_BLOCK_BYTES){
+                throw new IllegalArgumentException("block bigger than " + MAX_BLOCK_BYTES + " bytes: " + blockBytes);
+            }
+            this.channel = channel;
+            this.block = ByteBuffer.allocate(blockBytes);
+            this.block.position(BLOCK_HEADER_BYTES);
+        }
+
+        void write(Student student) throws IOException {
+            write(student.id, student.name);
+        }
+
+        void write(int id, CharSequence name) throws IOException {
+            if(name.length() > MAX_NAME_BYTES){
+                throw new IllegalArgumentException("name longer than " + MAX_NAME_BYTES + " UTF-8 bytes");
+            }
+            // worst case 3 bytes per char, flush first if it might not fit
+            if(block.remaining() < 6 + 3 * name.length()){
+                flushBlock();
+            }
+            int start = block.position();
+            block.putInt(id);
+            int lengthAt = block.position();
+            block.position(lengthAt + 2);
+            int length = encodeUtf8(name, block);
+            if(length > MAX_NAME_BYTES){
+                block.position(start);
+                throw new IllegalArgumentException("name longer than " + MAX_NAME_BYTES + " UTF-8 bytes");
+            }
+            block.putShort(lengthAt, (short) length);
+            recordCount++;
+            recordsWritten++;
+        }
+
+        // writes the current block to the channel
+        void flushBlock() throws IOException {
+            if(recordCount == 0) return;
+            block.putInt(0, block.position() - BLOCK_HEADER_BYTES);
+            block.putInt(4, recordCount);
+            block.flip();
+            while(block.hasRemaining()){
+                bytesWritten += channel.write(block);
+            }
+            block.clear();
+            block.position(BLOCK_HEADER_BYTES);
+            recordCount = 0;
+        }
+
+        long recordsWritten(){
+            return recordsWritten;
+        }
+
+        long bytesWritten(){
+            return bytesWritten;
+        }
+
+        // flushes the last block, the channel is left open for the caller
+        @Override
+        public void close() throws IOException {
+            flushBlock();
+        }
+    }
+
+    static final class Reader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        private ByteBuffer block = ByteBuffer.allocate(DEFAULT_BLOCK_BYTES);
+        private int recordsLeft;
+
+        Reader(ReadableByteChannel channel){
+            this.channel = channel;
+            this.block.limit(0);
+        }
+
+        // next record, null at the end of the channel
+        Student read() throws IOException {
+            if(!nextRecord()) return null;
+            checkRecord(block);
+            int id = block.getInt();
+            int length = Short.toUnsignedInt(block.getShort());
+            String name = new String(block.array(), block.position(), length, StandardCharsets.UTF_8);
+            block.position(block.position() + length);
+            return new Student(id, name);
+        }
+
+        // decodes the next record into record (no allocation), false at the end of the channel
+        boolean next(StudentRecord record) throws IOException {
+            if(!nextRecord()) return false;
+            record.decode(block);
+            return true;
+        }
+
+        void forEach(Consumer<Student> action) throws IOException {
+            Student student;
+            while((student = read()) != null){
+                action.accept(student);
+            }
+        }
+
+        // positions the block buffer at the next record, loading a block if needed
+        boolean nextRecord() throws IOException {
+            while(recordsLeft == 0){
+                if(!readBlock()) return false;
+            }
+            recordsLeft--;
+            return true;
+        }
+
+        ByteBuffer block(){
+            return block;
+        }
+
+        private boolean readBlock() throws IOException {
+            header.clear();
+            if(!readFully(header, true)) return false;
+            int payload = header.getInt(0);
+            int count = header.getInt(4);
+            if(payload < 0 || payload > MAX_BLOCK_BYTES || count < 0 || count > payload / MIN_RECORD_BYTES){
+                throw new IOException("corrupt block header: " + payload + " bytes, " + count + " records");
+            }
+            if(payload > block.capacity()){
+                block = ByteBuffer.allocate(payload);
+            }
+            block.clear().limit(payload);
+            readFully(block, false);
+            block.flip();
+            recordsLeft = count;
+            return true;
+        }
+
+        private boolean readFully(ByteBuffer buffer, boolean eofAllowed) throws IOException {
+            while(buffer.hasRemaining()){
+                if(channel.read(buffer) < 0){
+                    if(eofAllowed && buffer.position() == 0) return false;
+                    throw new EOFException("truncated student block");
+                }
+            }
+            return true;
+        }
+    }
+
+    // the record at block's position must lie inside the block: a wrong count
+    // or nameLength would otherwise read stale bytes of an earlier block
+    static void checkRecord(ByteBuffer block) throws IOException {
+        if(block.remaining() < MIN_RECORD_BYTES){
+            throw new IOException("corrupt block: records run out before the record count");
+        }
+        int length = Short.toUnsignedInt(block.getShort(block.position() + 4));
+        if(length > block.remaining() - MIN_RECORD_BYTES){
+            throw new IOException("corrupt record: name of " + length + " bytes, "
+                    + (block.remaining() - MIN_RECORD_BYTES) + " left in the block");
+        }
+    }
+
+    // decodes length UTF-8 bytes into dst (at least length chars long), returns the number of chars;
+    // malformed bytes become '\uFFFD'
+    static int decodeUtf8(byte[] src, int offset, int length, char[] dst){
+        int n = 0;
+        int i = offset;
+        int end = offset + length;
+        while(i < end){
+            int b = src[i];
+            if(b >= 0){
+                dst[n++] = (char) b;
+                i++;
+                continue;
+            }
+            if((b & 0xE0) == 0xC0 && i + 1 < end && isContinuation(src[i + 1])){
+                int c = ((b & 0x1F) << 6) | (src[i + 1] & 0x3F);
+                if(c >= 0x80){
+                    dst[n++] = (char) c;
+                    i += 2;
+                    continue;
+                }
+            }else if((b & 0xF0) == 0xE0 && i + 2 < end && isContinuation(src[i + 1]) && isContinuation(src[i + 2])){
+                int c = ((b & 0x0F) << 12) | ((src[i + 1] & 0x3F) << 6) | (src[i + 2] & 0x3F);
+                if(c >= 0x800 && !Character.isSurrogate((char) c)){
+                    dst[n++] = (char) c;
+                    i += 3;
+                    continue;
+                }
+            }else if((b & 0xF8) == 0xF0 && i + 3 < end && isContinuation(src[i + 1])
+                    && isContinuation(src[i + 2]) && isContinuation(src[i + 3])){
+                int cp = ((b & 0x07) << 18) | ((src[i + 1] & 0x3F) << 12) | ((src[i + 2] & 0x3F) << 6) | (src[i + 3] & 0x3F);
+                if(cp >= 0x10000 && cp <= Character.MAX_CODE_POINT){
+                    dst[n++] = Character.highSurrogate(cp);
+                    dst[n++] = Character.lowSurrogate(cp);
+                    i += 4;
+                    continue;
+                }
+            }
+            dst[n++] = '\uFFFD';
+            i++;
+        }
+        return n;
+    }
+
+    private static boolean isContinuation(byte b){
+        return (b & 0xC0) == 0x80;
+    }
+
+    // writes name as UTF-8 into out, returns the number of bytes written
+    static int encodeUtf8(CharSequence s, ByteBuffer out){
+        int start = out.position();
+        byte[] array = out.array();
+        int pos = out.arrayOffset() + start;
+        for(int i = 0, n = s.length(); i < n; i++){
+            char c = s.charAt(i);
+            if(c < 0x80){
+                array[pos++] = (byte) c;
+            }else if(c < 0x800){
+                array[pos++] = (byte) (0xC0 | (c >> 6));
+                array[pos++] = (byte) (0x80 | (c & 0x3F));
+            }else if(Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))){
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                array[pos++] = (byte) (0xF0 | (cp >> 18));
+                array[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                array[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                array[pos++] = (byte) (0x80 | (cp & 0x3F));
+            }else if(Character.isSurrogate(c)){
+                // unpaired surrogate, same replacement as String.getBytes
+                array[pos++] = (byte) '?';
+            }else{
+                array[pos++] = (byte) (0xE0 | (c >> 12));
+                array[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                array[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        int length = pos - out.arrayOffset() - start;
+        out.position(start + length);
+        return length;
+    }
+}
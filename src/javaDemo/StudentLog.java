@@ -0,0 +1,598 @@
+package javaDemo;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/*
+    Append-only log of Student records, for a continuous stream of records
+    (poddar.ser holds ONE object and the whole file is rewritten every time):
+    - Records are only ever added at the end; every record gets a number
+      (0, 1, 2, ...) that never changes
+    - The log is a directory of segment files of at most segmentBytes each.
+      A full segment is fsync'ed, sealed and never written again, and a new
+      one is started (roll-over). A segment is named after its first record
+      number, e.g. 00000000000000200000.log
+    - Every record is one frame, the payload is a StudentCodec record:
+
+        frame   = [int payloadBytes][int CRC32C of payload][payload]
+        payload = [int id][unsigned short nameLength][name as UTF-8 bytes]
+
+    Batched writes and group commit:
+    - append() only copies the frame into a 256 KB buffer; the buffer goes to
+      the file with one write() when it is full or when someone commits
+    - fsync (FileChannel.force) is the slow part, milliseconds on a real disk.
+      commit(n) returns once record n is on disk, and ONE fsync covers every
+      record appended before it: threads committing at the same time wait for
+      the fsync already running (or share the next one) instead of each
+      doing their own
+
+    Recovery:
+    - a sealed segment is fsync'ed before the next one is created, so after a
+      crash only the last (tail) segment can end with a half-written frame
+    - open() scans the tail only, checks every CRC and cuts the file after the
+      last good frame
+
+    Sparse index:
+    - the file position of every 1024th record of a segment is kept in a
+      long[], and saved as <segment>.idx when the segment is sealed
+    - get(n) = binary search for the segment, jump to the closest indexed
+      record before n, then skip at most 1023 frames
+*/
+class StudentLog implements AutoCloseable {
+    static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    static final int INDEX_INTERVAL = 1024;
+    static final int FRAME_HEADER_BYTES = 8;
+    static final int MIN_PAYLOAD_BYTES = 6;
+    static final int MAX_PAYLOAD_BYTES = MIN_PAYLOAD_BYTES + 3 * StudentCodec.MAX_NAME_BYTES;
+    // both buffers must hold the biggest possible frame
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    // frames of the tail segment that are not in the file yet
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_BYTES);
+    private final CRC32C crc = new CRC32C();
+    // channels of sealed segments that an fsync in progress may still use
+    private final List<FileChannel> retired = new ArrayList<>();
+    private Segment tail;
+    private FileChannel tailChannel;
+    private long nextRecord;
+    // records [0, durableRecords) are on disk
+    private long durableRecords;
+    private boolean syncing;
+    private long syncs;
+    private boolean closed;
+
+    private StudentLog(Path dir, long segmentBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        for(long base: segmentBases(dir)){
+            segments.add(new Segment(dir, base));
+        }
+        if(segments.isEmpty()){
+            segments.add(new Segment(dir, 0));
+        }
+        // sealed segments: the record count follows from the next segment's name
+        for(int i = 0; i < segments.size() - 1; i++){
+            Segment segment = segments.get(i);
+            segment.records = segments.get(i + 1).base - segment.base;
+            segment.size = Files.size(segment.file);
+        }
+        tail = segments.get(segments.size() - 1);
+        recoverTail();
+    }
+
+    static StudentLog open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    static StudentLog open(Path dir, long segmentBytes) throws IOException {
+        if(segmentBytes <= 0){
+            throw new IllegalArgumentException("segment size must be positive: " + segmentBytes);
+        }
+        Files.createDirectories(dir);
+        return new StudentLog(dir, segmentBytes);
+    }
+
+    // adds a record and returns its number; it is durable after commit(number)
+    long append(Student student) throws IOException {
+        return append(student.id, student.name);
+    }
+
+    synchronized long append(int id, CharSequence name) throws IOException {
+        ensureOpen();
+        if(name.length() > StudentCodec.MAX_NAME_BYTES){
+            throw new IllegalArgumentException("name longer than " + StudentCodec.MAX_NAME_BYTES + " UTF-8 bytes");
+        }
+        // worst case 3 bytes per char, write the buffer out first if it might not fit
+        if(pending.remaining() < FRAME_HEADER_BYTES + MIN_PAYLOAD_BYTES + 3 * name.length()){
+            writePending(pending.position());
+        }
+        int start = pending.position();
+        pending.position(start + FRAME_HEADER_BYTES);
+        pending.putInt(id);
+        int lengthAt = pending.position();
+        pending.position(lengthAt + 2);
+        int nameBytes = StudentCodec.encodeUtf8(name, pending);
+        if(nameBytes > StudentCodec.MAX_NAME_BYTES){
+            pending.position(start);
+            throw new IllegalArgumentException("name longer than " + StudentCodec.MAX_NAME_BYTES + " UTF-8 bytes");
+        }
+        pending.putShort(lengthAt, (short) nameBytes);
+        int payload = MIN_PAYLOAD_BYTES + nameBytes;
+        crc.reset();
+        crc.update(pending.array(), start + FRAME_HEADER_BYTES, payload);
+        pending.putInt(start, payload);
+        pending.putInt(start + 4, (int) crc.getValue());
+
+        // the frame does not fit in this segment any more: seal it, start a new one
+        if(tail.records > 0 && tail.size + start + FRAME_HEADER_BYTES + payload > segmentBytes){
+            roll(start);
+            start = 0;
+        }
+        if(tail.records % INDEX_INTERVAL == 0){
+            tail.addIndex(tail.size + start);
+        }
+        tail.records++;
+        return nextRecord++;
+    }
+
+    // appends the whole batch under one lock, returns the number of the last record
+    synchronized long appendAll(Iterable<Student> students) throws IOException {
+        long last = -1;
+        for(Student student: students){
+            last = append(student.id, student.name);
+        }
+        return last;
+    }
+
+    // returns once records [0, record] are on disk (group commit)
+    void commit(long record) throws IOException {
+        FileChannel channel;
+        long target;
+        synchronized(this){
+            ensureOpen();
+            if(record < 0 || record >= nextRecord){
+                throw new IllegalArgumentException("Record: " + record + ", Records: " + nextRecord);
+            }
+            // an fsync is running: it may already cover this record, wait for it
+            while(durableRecords <= record && syncing){
+                await();
+            }
+            if(durableRecords > record) return;
+            // this thread does the fsync for everything appended so far
+            writePending(pending.position());
+            syncing = true;
+            channel = tailChannel;
+            target = nextRecord;
+        }
+        IOException failure = null;
+        try{
+            // outside the lock: other threads keep appending while the disk works
+            channel.force(false);
+        }catch (IOException e){
+            failure = e;
+        }
+        synchronized(this){
+            syncing = false;
+            if(failure == null){
+                durableRecords = Math.max(durableRecords, target);
+                syncs++;
+            }
+            closeRetired();
+            notifyAll();
+        }
+        if(failure != null) throw failure;
+    }
+
+    // commits everything appended so far
+    void sync() throws IOException {
+        long last;
+        synchronized(this){
+            ensureOpen();
+            last = nextRecord - 1;
+        }
+        if(last >= 0) commit(last);
+    }
+
+    synchronized long recordCount(){
+        return nextRecord;
+    }
+
+    synchronized long durableCount(){
+        return durableRecords;
+    }
+
+    // number of fsync calls done by commit(), lower than the commits when they were grouped
+    synchronized long syncCount(){
+        return syncs;
+    }
+
+    Student get(long record) throws IOException {
+        Student[] found = new Student[1];
+        forEach(record, record + 1, student -> found[0] = student);
+        if(found[0] == null){
+            throw new IndexOutOfBoundsException("Record: " + record + ", Records: " + recordCount());
+        }
+        return found[0];
+    }
+
+    // records [from, to), to is capped at the current record count
+    void forEach(long from, long to, Consumer<Student> action) throws IOException {
+        if(from < 0 || from > to){
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ")");
+        }
+        List<Segment> view;
+        long record;
+        long position;
+        synchronized(this){
+            ensureOpen();
+            to = Math.min(to, nextRecord);
+            if(from >= to) return;
+            // readers use their own channels, so pending frames must be in the file
+            writePending(pending.position());
+            int s = segmentOf(from);
+            Segment segment = segments.get(s);
+            long[] index = indexOf(segment);
+            int entry = (int) ((from - segment.base) / INDEX_INTERVAL);
+            record = segment.base + (long) entry * INDEX_INTERVAL;
+            position = index[entry];
+            view = new ArrayList<>(segments.subList(s, segments.size()));
+        }
+
+        for(int i = 0; i < view.size() && record < to; i++){
+            Segment segment = view.get(i);
+            long end = i + 1 < view.size() ? Math.min(to, view.get(i + 1).base) : to;
+            try(FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)){
+                FrameReader reader = new FrameReader(channel, position);
+                for(; record < end; record++){
+                    if(!reader.next()){
+                        throw new IOException("corrupt frame for record " + record + " in " + segment.file);
+                    }
+                    if(record >= from){
+                        action.accept(reader.student());
+                    }
+                }
+            }
+            position = 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed) return;
+        while(syncing){
+            await();
+        }
+        writePending(pending.position());
+        tailChannel.force(false);
+        durableRecords = nextRecord;
+        tailChannel.close();
+        closeRetired();
+        closed = true;
+    }
+
+    // helper functions....
+    private static final class Segment {
+        final long base;
+        final Path file;
+        long records;
+        // bytes in the file
+        long size;
+        // index[k] = file position of record base + k * INDEX_INTERVAL
+        long[] index;
+        int indexCount;
+
+        Segment(Path dir, long base){
+            this.base = base;
+            this.file = dir.resolve(String.format("%020d", base) + LOG_SUFFIX);
+        }
+
+        Path indexFile(){
+            return file.resolveSibling(String.format("%020d", base) + INDEX_SUFFIX);
+        }
+
+        void addIndex(long position){
+            if(index == null){
+                index = new long[16];
+            }else if(indexCount == index.length){
+                index = Arrays.copyOf(index, indexCount + (indexCount >> 1));
+            }
+            index[indexCount++] = position;
+        }
+    }
+
+    // reads frames from a segment file, starting at a frame boundary
+    private static final class FrameReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        // file position of buffer index 0
+        private long bufferStart;
+        // buffer index of the current frame
+        private int frame;
+
+        FrameReader(FileChannel channel, long position){
+            this.channel = channel;
+            this.bufferStart = position;
+            this.buffer.limit(0);
+        }
+
+        // moves to the next frame; false at the end of the file or at a broken frame
+        boolean next() throws IOException {
+            if(!fill(FRAME_HEADER_BYTES)) return false;
+            int at = buffer.position();
+            int payload = buffer.getInt(at);
+            int checksum = buffer.getInt(at + 4);
+            if(payload < MIN_PAYLOAD_BYTES || payload > MAX_PAYLOAD_BYTES) return false;
+            if(!fill(FRAME_HEADER_BYTES + payload)) return false;
+            at = buffer.position();
+            crc.reset();
+            crc.update(buffer.array(), at + FRAME_HEADER_BYTES, payload);
+            if((int) crc.getValue() != checksum) return false;
+            if(MIN_PAYLOAD_BYTES + Short.toUnsignedInt(buffer.getShort(at + FRAME_HEADER_BYTES + 4)) != payload) return false;
+            frame = at;
+            buffer.position(at + FRAME_HEADER_BYTES + payload);
+            return true;
+        }
+
+        Student student(){
+            int at = frame + FRAME_HEADER_BYTES;
+            int id = buffer.getInt(at);
+            int length = Short.toUnsignedInt(buffer.getShort(at + 4));
+            return new Student(id, new String(buffer.array(), at + 6, length, StandardCharsets.UTF_8));
+        }
+
+        // file position of the current frame
+        long framePosition(){
+            return bufferStart + frame;
+        }
+
+        // file position right after the current frame
+        long position(){
+            return bufferStart + buffer.position();
+        }
+
+        private boolean fill(int bytes) throws IOException {
+            if(buffer.remaining() >= bytes) return true;
+            bufferStart += buffer.position();
+            buffer.compact();
+            while(buffer.position() < bytes){
+                if(channel.read(buffer, bufferStart + buffer.position()) < 0) break;
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+    }
+
+    private static List<Long> segmentBases(Path dir) throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + LOG_SUFFIX)){
+            for(Path file: files){
+                String name = file.getFileName().toString();
+                String digits = name.substring(0, name.length() - LOG_SUFFIX.length());
+                if(digits.length() == 20 && digits.chars().allMatch(Character::isDigit)){
+                    bases.add(Long.parseLong(digits));
+                }
+            }
+        }
+        bases.sort(Comparator.naturalOrder());
+        return bases;
+    }
+
+    // scans the tail segment and cuts off a half-written frame at its end
+    private void recoverTail() throws IOException {
+        // an index file here is left over from a crash during roll-over
+        Files.deleteIfExists(tail.indexFile());
+        tailChannel = FileChannel.open(tail.file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FrameReader reader = new FrameReader(tailChannel, 0);
+        long good = 0;
+        while(reader.next()){
+            if(tail.records % INDEX_INTERVAL == 0){
+                tail.addIndex(reader.framePosition());
+            }
+            tail.records++;
+            good = reader.position();
+        }
+        if(tailChannel.size() > good){
+            tailChannel.truncate(good);
+            tailChannel.force(true);
+        }
+        tail.size = good;
+        nextRecord = tail.base + tail.records;
+        durableRecords = nextRecord;
+    }
+
+    // writes pending[0, end) to the tail segment and moves the rest to the front
+    private void writePending(int end) throws IOException {
+        if(end == 0) return;
+        ByteBuffer out = pending.duplicate();
+        out.position(0).limit(end);
+        while(out.hasRemaining()){
+            tail.size += tailChannel.write(out, tail.size);
+        }
+        int rest = pending.position() - end;
+        System.arraycopy(pending.array(), end, pending.array(), 0, rest);
+        pending.position(rest);
+    }
+
+    // seals the tail; pending[0, end) still belongs to it, the rest to the new segment
+    private void roll(int end) throws IOException {
+        writePending(end);
+        tailChannel.force(false);
+        writeIndex(tail);
+        // nextRecord is not counted yet: its frame goes to the new segment
+        durableRecords = nextRecord;
+        if(syncing){
+            retired.add(tailChannel);
+        }else{
+            tailChannel.close();
+        }
+        tail = new Segment(dir, nextRecord);
+        segments.add(tail);
+        tailChannel = FileChannel.open(tail.file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        syncDirectory();
+    }
+
+    private static void writeIndex(Segment segment) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(16 + segment.indexCount * Long.BYTES);
+        out.putLong(segment.records).putLong(segment.indexCount);
+        for(int i = 0; i < segment.indexCount; i++){
+            out.putLong(segment.index[i]);
+        }
+        out.flip();
+        try(FileChannel channel = FileChannel.open(segment.indexFile(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            while(out.hasRemaining()){
+                channel.write(out);
+            }
+        }
+    }
+
+    // index of a sealed segment is loaded on first use, rebuilt if the .idx file is missing or stale
+    private long[] indexOf(Segment segment) throws IOException {
+        if(segment.index != null || segment.records == 0) return segment.index;
+        int expected = (int) ((segment.records + INDEX_INTERVAL - 1) / INDEX_INTERVAL);
+        Path indexFile = segment.indexFile();
+        if(Files.exists(indexFile) && Files.size(indexFile) == 16 + (long) expected * Long.BYTES){
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+            if(in.getLong() == segment.records && in.getLong() == expected){
+                long[] index = new long[expected];
+                in.asLongBuffer().get(index);
+                segment.index = index;
+                segment.indexCount = expected;
+                return index;
+            }
+        }
+        try(FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)){
+            FrameReader reader = new FrameReader(channel, 0);
+            for(long n = 0; n < segment.records; n++){
+                if(!reader.next()){
+                    throw new IOException("corrupt frame for record " + (segment.base + n) + " in " + segment.file);
+                }
+                if(n % INDEX_INTERVAL == 0){
+                    segment.addIndex(reader.framePosition());
+                }
+            }
+        }
+        writeIndex(segment);
+        return segment.index;
+    }
+
+    private int segmentOf(long record){
+        int low = 0, high = segments.size() - 1;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(segments.get(mid).base <= record){
+                low = mid;
+            }else{
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // makes the new segment's directory entry durable too (not supported on every OS)
+    private void syncDirectory(){
+        try(FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)){
+            channel.force(true);
+        }catch (IOException e){
+            // best effort
+        }
+    }
+
+    private void closeRetired() throws IOException {
+        if(syncing) return;
+        for(FileChannel channel: retired){
+            channel.close();
+        }
+        retired.clear();
+    }
+
+    private void await() throws IOException {
+        try{
+            wait();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for fsync");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if(closed) throw new IOException("log is closed");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of("students-log");
+        // small segments, so the demo rolls over a few times
+        try(StudentLog log = StudentLog.open(dir, 1024 * 1024)){
+            int writers = 4;
+            Thread[] threads = new Thread[writers];
+            long start = System.nanoTime();
+            for(int t = 0; t < writers; t++){
+                int first = t * 50_000;
+                threads[t] = new Thread(() -> {
+                    try{
+                        for(int i = first; i < first + 50_000; i++){
+                            long record = log.append(i, "student-" + i);
+                            // every thread wants its records on disk every 1000 appends
+                            if(i % 1000 == 999) log.commit(record);
+                        }
+                    }catch (IOException e){
+                        System.out.println(e.getMessage());
+                    }
+                });
+                threads[t].start();
+            }
+            for(Thread thread: threads){
+                thread.join();
+            }
+            log.sync();
+            System.out.println("appended " + log.recordCount() + " records in " + (System.nanoTime() - start) / 1_000_000
+                    + "ms, 200 commits needed " + log.syncCount() + " fsyncs");
+        }
+
+        // a crash in the middle of a write: garbage after the last complete frame
+        Path tailFile;
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + LOG_SUFFIX)){
+            List<Path> sorted = new ArrayList<>();
+            files.forEach(sorted::add);
+            sorted.sort(Comparator.naturalOrder());
+            System.out.println("segments: " + sorted.size());
+            tailFile = sorted.get(sorted.size() - 1);
+        }
+        Files.write(tailFile, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try(StudentLog log = StudentLog.open(dir, 1024 * 1024)){
+            System.out.println("recovered " + log.recordCount() + " records");
+            Student student = log.get(123_456);
+            System.out.println("record 123456: " + student.id + " " + student.name);
+            log.forEach(199_998, Long.MAX_VALUE, s -> System.out.println("tail: " + s.id + " " + s.name));
+        }
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)){
+            for(Path file: files){
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,66 @@
+package javaDemo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/*
+    One Student record that is reused for every record of a scan (flyweight):
+    - StudentCodec.Reader.read() creates a Student and a String per record;
+      for millions of records that is millions of short-lived objects
+    - A StudentRecord is filled in place: the id is a plain int and the name is
+      decoded into a char[] that is only replaced when a longer name comes
+    - name() returns a CharSequence view of that char[], no String is made
+
+    The same instance is handed out again for the next record, so anything
+    that must outlive the current record has to be copied with toStudent()
+    or nameString().
+*/
+final class StudentRecord {
+    private int id;
+    private char[] name = new char[32];
+    private CharBuffer nameView = CharBuffer.wrap(name);
+    private int nameLength;
+
+    int id(){
+        return id;
+    }
+
+    // valid until the next record is decoded into this instance
+    CharSequence name(){
+        nameView.clear().limit(nameLength);
+        return nameView;
+    }
+
+    int nameLength(){
+        return nameLength;
+    }
+
+    String nameString(){
+        return new String(name, 0, nameLength);
+    }
+
+    Student toStudent(){
+        return new Student(id, nameString());
+    }
+
+    // reads one StudentCodec record from block (a heap buffer) at its position
+    void decode(ByteBuffer block) throws IOException {
+        StudentCodec.checkRecord(block);
+        id = block.getInt();
+        int length = Short.toUnsignedInt(block.getShort());
+        // one UTF-8 byte never gives more than one char
+        if(name.length < length){
+            name = new char[Math.max(length, name.length * 2)];
+            nameView = CharBuffer.wrap(name);
+        }
+        int at = block.position();
+        nameLength = StudentCodec.decodeUtf8(block.array(), block.arrayOffset() + at, length, name);
+        block.position(at + length);
+    }
+
+    @Override
+    public String toString(){
+        return id + " " + nameString();
+    }
+}
@@ -0,0 +1,162 @@
+package javaDemo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+    Spliterator over a StudentCodec file, so a file of millions of records can
+    be used with java.util.stream without loading it into a List:
+    - records are decoded one at a time from a block buffer into ONE reused
+      StudentRecord, a full scan allocates a fixed number of objects
+    - when it is created, only the 8-byte block headers are read (hopping from
+      header to header), which gives the file position and record count of
+      every block
+    - trySplit() hands out the first half of the remaining blocks, so parallel
+      streams split the file by region and every thread reads its own blocks
+      (FileChannel positional reads can be used from many threads at once)
+    - the sizes are exact, so count() does not even read the records
+
+    Every split has its own StudentRecord; it is reused for every record, so
+    copy it (toStudent()) before keeping it.
+*/
+final class StudentSpliterator implements Spliterator<StudentRecord> {
+    private final FileChannel channel;
+    // blockOffsets[b] = file position of block b, blockOffsets[blockCount] = end of the data
+    private final long[] blockOffsets;
+    // recordsBefore[b] = records in blocks [0, b)
+    private final long[] recordsBefore;
+    private final StudentRecord record = new StudentRecord();
+    private int block;
+    private final int endBlock;
+    private ByteBuffer buffer;
+    private int recordsLeft;
+
+    private StudentSpliterator(FileChannel channel, long[] blockOffsets, long[] recordsBefore, int block, int endBlock){
+        this.channel = channel;
+        this.blockOffsets = blockOffsets;
+        this.recordsBefore = recordsBefore;
+        this.block = block;
+        this.endBlock = endBlock;
+    }
+
+    // reads the block headers of the whole file
+    static StudentSpliterator of(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long[] offsets = new long[16];
+        long[] before = new long[16];
+        int blocks = 0;
+        long position = 0;
+        long records = 0;
+        ByteBuffer header = ByteBuffer.allocate(StudentCodec.BLOCK_HEADER_BYTES);
+        while(position < size){
+            header.clear();
+            readFully(channel, header, position);
+            int payload = header.getInt(0);
+            int count = header.getInt(4);
+            if(payload < 0 || payload > StudentCodec.MAX_BLOCK_BYTES || count < 0
+                    || count > payload / StudentCodec.MIN_RECORD_BYTES
+                    || position + StudentCodec.BLOCK_HEADER_BYTES + payload > size){
+                throw new IOException("corrupt block header at " + position + ": " + payload + " bytes, " + count + " records");
+            }
+            if(blocks + 1 == offsets.length){
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                before = Arrays.copyOf(before, before.length * 2);
+            }
+            offsets[blocks] = position;
+            before[blocks] = records;
+            blocks++;
+            position += StudentCodec.BLOCK_HEADER_BYTES + payload;
+            records += count;
+        }
+        offsets[blocks] = position;
+        before[blocks] = records;
+        return new StudentSpliterator(channel, offsets, before, 0, blocks);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super StudentRecord> action){
+        if(recordsLeft == 0 && !loadNextBlock()) return false;
+        decode();
+        recordsLeft--;
+        action.accept(record);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super StudentRecord> action){
+        while(recordsLeft > 0 || loadNextBlock()){
+            for(; recordsLeft > 0; recordsLeft--){
+                decode();
+                action.accept(record);
+            }
+        }
+    }
+
+    // first half of the blocks not read yet, null if there is less than two
+    @Override
+    public Spliterator<StudentRecord> trySplit(){
+        // a half-read block would end up after the split-off prefix
+        if(recordsLeft > 0 || endBlock - block < 2) return null;
+        int mid = (block + endBlock) >>> 1;
+        StudentSpliterator prefix = new StudentSpliterator(channel, blockOffsets, recordsBefore, block, mid);
+        block = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize(){
+        return recordsBefore[endBlock] - recordsBefore[block] + recordsLeft;
+    }
+
+    @Override
+    public int characteristics(){
+        return ORDERED | NONNULL | SIZED | SUBSIZED | IMMUTABLE;
+    }
+
+    // helper functions....
+    private void decode(){
+        try{
+            record.decode(buffer);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean loadNextBlock(){
+        while(block < endBlock){
+            long start = blockOffsets[block] + StudentCodec.BLOCK_HEADER_BYTES;
+            int payload = (int) (blockOffsets[block + 1] - start);
+            int count = (int) (recordsBefore[block + 1] - recordsBefore[block]);
+            block++;
+            if(count == 0) continue;
+            if(buffer == null || buffer.capacity() < payload){
+                buffer = ByteBuffer.allocate(Math.max(payload, StudentCodec.DEFAULT_BLOCK_BYTES));
+            }
+            buffer.clear().limit(payload);
+            try{
+                readFully(channel, buffer, start);
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            buffer.flip();
+            recordsLeft = count;
+            return true;
+        }
+        return false;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer, position + buffer.position() - start) < 0){
+                throw new EOFException("truncated student block at " + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package javaDemo;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Copying and transforming text in big blocks:
+    - reader.read() moves ONE char per call, for a few GB that is billions of
+      (synchronized) calls; read(char[]) moves up to 64K chars per call
+    - the char[] / byte[] blocks come from a per-thread pool, so copying a
+      thousand small files allocates the blocks once, not a thousand times
+    - FileReader / FileWriter without a charset use the platform default, so
+      the same program reads a file differently on another machine;
+      here the charset is always passed explicitly
+
+    Fast path:
+    - when source and target use the same charset there is nothing to decode,
+      the bytes are moved as they are (FileChannel.transferTo for files, which
+      lets the OS copy without bringing the data into Java at all)
+
+    Transform:
+    - transform() hands every block to a CharTransform, which writes its
+      result to the Writer (upper-casing, filtering, replacing, ...)
+*/
+public class TextCopier {
+    static final int BLOCK_CHARS = 64 * 1024;
+    static final int BLOCK_BYTES = 64 * 1024;
+
+    // gets a block of text and writes the transformed text to out
+    public interface CharTransform {
+        void apply(char[] chars, int length, Writer out) throws IOException;
+    }
+
+    // writes the block unchanged
+    static final CharTransform COPY = (chars, length, out) -> out.write(chars, 0, length);
+
+    private static final ThreadLocal<Pool> POOL = ThreadLocal.withInitial(Pool::new);
+
+    private TextCopier(){}
+
+    // Reader -> Writer in blocks, returns the number of chars copied
+    public static long copy(Reader in, Writer out) throws IOException {
+        return transform(in, out, COPY);
+    }
+
+    public static long transform(Reader in, Writer out, CharTransform transform) throws IOException {
+        Pool pool = POOL.get();
+        char[] chars = pool.borrowChars();
+        try{
+            long total = 0;
+            int read;
+            while((read = in.read(chars)) != -1){
+                transform.apply(chars, read, out);
+                total += read;
+            }
+            return total;
+        }finally{
+            pool.release(chars);
+        }
+    }
+
+    // bytes in `from` -> text in `to`, bytes are copied as-is when the charsets match
+    public static long copy(InputStream in, Charset from, OutputStream out, Charset to) throws IOException {
+        if(from.equals(to)){
+            return transferBytes(in, out);
+        }
+        return transform(in, from, out, to, COPY);
+    }
+
+    public static long transform(InputStream in, Charset from, OutputStream out, Charset to,
+                                 CharTransform transform) throws IOException {
+        Writer writer = new OutputStreamWriter(out, to);
+        long chars = transform(new InputStreamReader(in, from), writer, transform);
+        // flush the encoder, the stream itself is left open for the caller
+        writer.flush();
+        return chars;
+    }
+
+    // file -> file; with the same charset the OS copies the bytes (returns bytes), otherwise returns chars.
+    // Opening the target truncates it, so source and target may not be the same file (IOException)
+    public static long copy(Path source, Charset from, Path target, Charset to) throws IOException {
+        checkNotSameFile(source, target);
+        if(from.equals(to)){
+            try(FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+                return transferFully(in, out);
+            }
+        }
+        return transform(source, from, target, to, COPY);
+    }
+
+    public static long transform(Path source, Charset from, Path target, Charset to,
+                                 CharTransform transform) throws IOException {
+        checkNotSameFile(source, target);
+        try(Reader reader = new InputStreamReader(Files.newInputStream(source), from);
+            Writer writer = new OutputStreamWriter(Files.newOutputStream(target), to)){
+            return transform(reader, writer, transform);
+        }
+    }
+
+    // helper functions....
+    private static void checkNotSameFile(Path source, Path target) throws IOException {
+        if(Files.exists(target) && Files.isSameFile(source, target)){
+            throw new IOException("source and target are the same file: " + source);
+        }
+    }
+
+    private static long transferBytes(InputStream in, OutputStream out) throws IOException {
+        if(in instanceof FileInputStream && out instanceof FileOutputStream){
+            return transferFully(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel());
+        }
+        Pool pool = POOL.get();
+        byte[] bytes = pool.borrowBytes();
+        try{
+            long total = 0;
+            int read;
+            while((read = in.read(bytes)) != -1){
+                out.write(bytes, 0, read);
+                total += read;
+            }
+            return total;
+        }finally{
+            pool.release(bytes);
+        }
+    }
+
+    // transferTo may move fewer bytes than asked, so loop until the end of the file
+    private static long transferFully(FileChannel in, FileChannel out) throws IOException {
+        long position = in.position();
+        long size = in.size();
+        long total = 0;
+        while(position < size){
+            long moved = in.transferTo(position, size - position, out);
+            if(moved <= 0) break;
+            position += moved;
+            total += moved;
+        }
+        in.position(position);
+        return total;
+    }
+
+    // one char block and one byte block per thread; a nested call on the same
+    // thread (a transform that copies again) gets a fresh block instead
+    private static final class Pool {
+        private char[] chars;
+        private boolean charsInUse;
+        private byte[] bytes;
+        private boolean bytesInUse;
+
+        char[] borrowChars(){
+            if(charsInUse) return new char[BLOCK_CHARS];
+            if(chars == null) chars = new char[BLOCK_CHARS];
+            charsInUse = true;
+            return chars;
+        }
+
+        byte[] borrowBytes(){
+            if(bytesInUse) return new byte[BLOCK_BYTES];
+            if(bytes == null) bytes = new byte[BLOCK_BYTES];
+            bytesInUse = true;
+            return bytes;
+        }
+
+        void release(char[] block){
+            if(block == chars) charsInUse = false;
+        }
+
+        void release(byte[] block){
+            if(block == bytes) bytesInUse = false;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path source = Path.of("text-source.txt");
+        try(Writer writer = Files.newBufferedWriter(source, StandardCharsets.UTF_8)){
+            for(int i = 0; i < 200_000; i++){
+                writer.write("line " + i + ": héllo wörld ₹\n");
+            }
+        }
+
+        // same charset: bytes are moved by the OS
+        long start = System.nanoTime();
+        long bytes = copy(source, StandardCharsets.UTF_8, Path.of("text-copy.txt"), StandardCharsets.UTF_8);
+        System.out.println("copied " + bytes + " bytes in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        // different charset: decoded and encoded in 64K-char blocks
+        start = System.nanoTime();
+        long chars = copy(source, StandardCharsets.UTF_8, Path.of("text-utf16.txt"), StandardCharsets.UTF_16LE);
+        System.out.println("re-encoded " + chars + " chars in " + (System.nanoTime() - start) / 1_000_000 + "ms, "
+                + Files.size(Path.of("text-utf16.txt")) + " bytes as UTF-16");
+
+        // transform: upper-case in place, block by block
+        start = System.nanoTime();
+        transform(source, StandardCharsets.UTF_8, Path.of("text-upper.txt"), StandardCharsets.UTF_8,
+                (block, length, out) -> {
+                    for(int i = 0; i < length; i++){
+                        block[i] = Character.toUpperCase(block[i]);
+                    }
+                    out.write(block, 0, length);
+                });
+        try(BufferedReader reader = Files.newBufferedReader(Path.of("text-upper.txt"), StandardCharsets.UTF_8)){
+            System.out.println("upper-cased in " + (System.nanoTime() - start) / 1_000_000 + "ms, first line: " + reader.readLine());
+        }
+
+        Files.delete(source);
+        Files.delete(Path.of("text-copy.txt"));
+        Files.delete(Path.of("text-utf16.txt"));
+        Files.delete(Path.of("text-upper.txt"));
+    }
+}
@@ -0,0 +1,507 @@
+package javaDemo;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Noticing new / changed / deleted files without re-checking everything:
+    - running exists() / length() over the whole tree in a loop costs the same
+      every round, whether one file changed or none, and gets slower as the
+      tree grows
+    - TreeWatcher keeps a snapshot of the tree in memory (path -> size, mtime)
+      and lets the OS tell it WHAT changed (WatchService: inotify on Linux,
+      ReadDirectoryChangesW on Windows); only the paths in the events are
+      looked at, so the work per change does not depend on the tree size
+    - changes are collected for a short window (batchWindow) and delivered
+      together; several events for the same path are merged (created then
+      modified = created, created then deleted = nothing)
+
+    Polling fallback:
+    - used when there is no native WatchService (the JDK's own fallback on
+      macOS only polls every 10 s), or when the OS refuses more watches
+      (Linux: fs.inotify.max_user_watches)
+    - every round stats each DIRECTORY once: a directory's mtime changes when
+      an entry is created, deleted or renamed in it, and only those
+      directories are listed again and diffed against the snapshot
+    - a directory that changed less than 2 s ago is listed every round until it
+      is older (a second change in the same mtime tick would be invisible)
+    - in-place edits don't touch the directory's mtime, so each round also
+      re-checks a fixed number of files (filesPerRound), round robin;
+      the cost per round stays fixed, big trees just see edits a bit later
+
+    MODIFIED is reported for files only; a directory's own mtime changes are
+    implied by the CREATED / DELETED events of its entries. The listener is
+    called on the watcher thread.
+*/
+public class TreeWatcher implements AutoCloseable {
+    static final long DEFAULT_BATCH_WINDOW_MILLIS = 50;
+    static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+    static final int DEFAULT_FILES_PER_ROUND = 10_000;
+    // file systems with coarse mtimes (FAT: 2 s) can hide a change in the same tick
+    private static final long MTIME_GRANULARITY_MILLIS = 2000;
+
+    public enum Kind { CREATED, MODIFIED, DELETED }
+
+    public enum Mode { AUTO, NATIVE, POLLING }
+
+    public static final class Change {
+        public final Kind kind;
+        public final Path path;
+        public final boolean directory;
+
+        Change(Kind kind, Path path, boolean directory){
+            this.kind = kind;
+            this.path = path;
+            this.directory = directory;
+        }
+
+        @Override
+        public String toString(){
+            return kind + " " + path + (directory ? "/" : "");
+        }
+    }
+
+    public interface Listener {
+        void onChanges(List<Change> changes);
+
+        default void onError(Exception e){
+        }
+    }
+
+    private static final class Node {
+        final long size;
+        final long mtime;
+        final boolean directory;
+
+        Node(BasicFileAttributes attrs){
+            this(attrs.size(), attrs.lastModifiedTime().toMillis(), attrs.isDirectory());
+        }
+
+        Node(long size, long mtime, boolean directory){
+            this.size = size;
+            this.mtime = mtime;
+            this.directory = directory;
+        }
+
+        boolean sameAs(BasicFileAttributes attrs){
+            return size == attrs.size() && mtime == attrs.lastModifiedTime().toMillis()
+                    && directory == attrs.isDirectory();
+        }
+    }
+
+    private final Path root;
+    private final Listener listener;
+    private final long batchWindowNanos;
+    private final long pollIntervalMillis;
+    private final int filesPerRound;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // snapshot, only touched by the watcher thread (and the constructor)
+    private final Map<Path, Node> nodes = new HashMap<>();
+    private final Map<Path, Set<Path>> children = new HashMap<>();
+    private final Map<Path, Change> pending = new LinkedHashMap<>();
+    private long batchDeadline;
+
+    // native mode; null once polling
+    private volatile WatchService watchService;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> keysByDirectory = new ConcurrentHashMap<>();
+
+    // polling mode: files still to re-check in the current sweep
+    private List<Path> sweep = Collections.emptyList();
+    private int sweepIndex;
+
+    public TreeWatcher(Path root, Listener listener) throws IOException {
+        this(root, listener, Mode.AUTO, DEFAULT_BATCH_WINDOW_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS, DEFAULT_FILES_PER_ROUND);
+    }
+
+    public TreeWatcher(Path root, Listener listener, Mode mode, long batchWindowMillis,
+                       long pollIntervalMillis, int filesPerRound) throws IOException {
+        this.root = root;
+        this.listener = listener;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.filesPerRound = filesPerRound;
+
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        if(!attrs.isDirectory()){
+            throw new IOException("not a directory: " + root);
+        }
+        if(mode != Mode.POLLING){
+            watchService = nativeWatchService(mode);
+        }
+        snapshot(attrs);
+        this.thread = new Thread(this::run, "tree-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public boolean isPolling(){
+        return watchService == null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        WatchService service = watchService;
+        if(service != null){
+            service.close();
+        }
+        thread.interrupt();
+        try{
+            thread.join();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // helper functions....
+    private static WatchService nativeWatchService(Mode mode) throws IOException {
+        try{
+            WatchService service = FileSystems.getDefault().newWatchService();
+            // the JDK's portable fallback (macOS) polls every 10 s, the mtime polling here reacts sooner
+            if(mode == Mode.AUTO && service.getClass().getSimpleName().startsWith("Polling")){
+                service.close();
+                return null;
+            }
+            return service;
+        }catch (UnsupportedOperationException e){
+            if(mode == Mode.NATIVE) throw new IOException("no native WatchService", e);
+            return null;
+        }
+    }
+
+    // initial state: parallel walk, then watch every directory
+    private void snapshot(BasicFileAttributes rootAttrs) throws IOException {
+        nodes.put(root, new Node(rootAttrs));
+        children.put(root, new HashSet<>());
+        List<DirectoryWalker.Entry> entries;
+        try(DirectoryWalker walker = new DirectoryWalker(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()), false)){
+            entries = walker.list(root);
+        }
+        // parents before children, so every parent has its children set
+        entries.sort((a, b) -> Integer.compare(a.path.getNameCount(), b.path.getNameCount()));
+        for(DirectoryWalker.Entry entry: entries){
+            if(entry.symbolicLink && !entry.directory) continue;
+            nodes.put(entry.path, new Node(entry.size, entry.lastModifiedMillis, entry.directory));
+            children.computeIfAbsent(entry.path.getParent(), p -> new HashSet<>()).add(entry.path);
+            if(entry.directory){
+                children.putIfAbsent(entry.path, new HashSet<>());
+            }
+        }
+        if(watchService != null){
+            for(Map.Entry<Path, Set<Path>> dir: new ArrayList<>(children.entrySet())){
+                if(!register(dir.getKey())) break;
+            }
+            // something may have changed between the walk and the registration
+            checkDirectories();
+        }
+    }
+
+    private void run(){
+        try{
+            while(running){
+                if(watchService != null){
+                    waitForEvents();
+                }else{
+                    pollRound();
+                    deliver();
+                    Thread.sleep(pollIntervalMillis);
+                }
+            }
+        }catch (InterruptedException | ClosedWatchServiceException e){
+            // closing
+        }catch (RuntimeException e){
+            listener.onError(e);
+        }
+        // whatever was collected before close() is still delivered
+        deliver();
+    }
+
+    private void waitForEvents() throws InterruptedException {
+        WatchService service = watchService;
+        WatchKey key;
+        if(pending.isEmpty()){
+            key = service.take();
+        }else{
+            long wait = batchDeadline - System.nanoTime();
+            key = wait > 0 ? service.poll(wait, TimeUnit.NANOSECONDS) : service.poll();
+        }
+        while(key != null){
+            handle(key);
+            if(watchService == null) return;
+            key = service.poll();
+        }
+        if(!pending.isEmpty() && System.nanoTime() - batchDeadline >= 0){
+            deliver();
+        }
+    }
+
+    private void handle(WatchKey key){
+        Path dir = keys.get(key);
+        List<WatchEvent<?>> events = key.pollEvents();
+        boolean valid = key.reset();
+        if(dir == null) return;
+        for(WatchEvent<?> event: events){
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW){
+                // the OS dropped events: compare this directory with the snapshot
+                rescan(dir);
+            }else{
+                refresh(dir.resolve((Path) event.context()));
+            }
+            if(watchService == null) return;
+        }
+        if(!valid){
+            // the directory was deleted (or replaced by a new one with the same name)
+            keys.remove(key);
+            keysByDirectory.remove(dir, key);
+            rescan(dir);
+        }
+    }
+
+    // compares one path with the snapshot and records what changed
+    private void refresh(Path path){
+        BasicFileAttributes attrs = stat(path);
+        Node old = nodes.get(path);
+        if(attrs == null || attrs.isSymbolicLink() && !attrs.isDirectory()){
+            if(old != null) remove(path);
+        }else if(old == null){
+            add(path, attrs);
+        }else if(old.directory != attrs.isDirectory()){
+            remove(path);
+            add(path, attrs);
+        }else if(!old.sameAs(attrs)){
+            nodes.put(path, new Node(attrs));
+            if(!old.directory){
+                record(Kind.MODIFIED, path, false);
+            }else if(!watched(path)){
+                // nobody reports this directory's entries (polling, or it was
+                // deleted and created again): compare them here
+                if(watchService != null) register(path);
+                diffEntries(path);
+            }
+        }
+    }
+
+    // a directory changed or its events were lost: diff it and the directory itself
+    private void rescan(Path dir){
+        BasicFileAttributes attrs = stat(dir);
+        Node old = nodes.get(dir);
+        if(attrs == null || !attrs.isDirectory() || old == null || !old.directory){
+            refresh(dir);
+            return;
+        }
+        nodes.put(dir, new Node(attrs));
+        if(watchService != null && !watched(dir)) register(dir);
+        diffEntries(dir);
+    }
+
+    // refresh every name that is on disk or in the snapshot
+    private void diffEntries(Path dir){
+        Set<Path> names = new HashSet<>(children.getOrDefault(dir, Collections.emptySet()));
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)){
+            for(Path child: stream){
+                names.add(child);
+            }
+        }catch (IOException e){
+            // gone or unreadable: the entries are gone for us too
+        }
+        for(Path child: names){
+            refresh(child);
+        }
+    }
+
+    private boolean watched(Path dir){
+        WatchKey key = keysByDirectory.get(dir);
+        return key != null && key.isValid();
+    }
+
+    private void add(Path path, BasicFileAttributes attrs){
+        nodes.put(path, new Node(attrs));
+        Path parent = path.getParent();
+        children.computeIfAbsent(parent, p -> new HashSet<>()).add(path);
+        record(Kind.CREATED, path, attrs.isDirectory());
+        if(attrs.isDirectory()){
+            children.putIfAbsent(path, new HashSet<>());
+            // watch first, then list: nothing created in between is lost
+            if(watchService != null) register(path);
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(path)){
+                for(Path child: stream){
+                    if(!nodes.containsKey(child)) refresh(child);
+                }
+            }catch (IOException e){
+                // removed again already, the DELETE event follows
+            }
+        }
+    }
+
+    private void remove(Path path){
+        Node node = nodes.remove(path);
+        if(node == null) return;
+        Set<Path> siblings = children.get(path.getParent());
+        if(siblings != null) siblings.remove(path);
+        if(node.directory){
+            Set<Path> kids = children.remove(path);
+            if(kids != null){
+                for(Path kid: new ArrayList<>(kids)){
+                    remove(kid);
+                }
+            }
+            WatchKey key = keysByDirectory.remove(path);
+            if(key != null){
+                keys.remove(key);
+                key.cancel();
+            }
+        }
+        record(Kind.DELETED, path, node.directory);
+    }
+
+    // merges with an earlier change of the same path in this batch
+    private void record(Kind kind, Path path, boolean directory){
+        if(pending.isEmpty()){
+            batchDeadline = System.nanoTime() + batchWindowNanos;
+        }
+        Change before = pending.remove(path);
+        Kind merged = kind;
+        if(before != null){
+            if(before.kind == Kind.CREATED && kind == Kind.DELETED) return;
+            if(before.kind == Kind.CREATED) merged = Kind.CREATED;
+            else if(before.kind == Kind.DELETED && kind == Kind.CREATED) merged = Kind.MODIFIED;
+        }
+        pending.put(path, new Change(merged, path, directory));
+    }
+
+    private void deliver(){
+        if(pending.isEmpty()) return;
+        List<Change> batch = Collections.unmodifiableList(new ArrayList<>(pending.values()));
+        pending.clear();
+        try{
+            listener.onChanges(batch);
+        }catch (RuntimeException e){
+            listener.onError(e);
+        }
+    }
+
+    // false when the OS has no more watches: the whole tree switches to polling
+    private boolean register(Path dir){
+        WatchService service = watchService;
+        if(service == null) return false;
+        try{
+            WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(key, dir);
+            keysByDirectory.put(dir, key);
+            return true;
+        }catch (NoSuchFileException e){
+            return true;
+        }catch (IOException e){
+            listener.onError(e);
+            switchToPolling();
+            return false;
+        }
+    }
+
+    private void switchToPolling(){
+        WatchService service = watchService;
+        watchService = null;
+        keys.clear();
+        keysByDirectory.clear();
+        try{
+            service.close();
+        }catch (IOException e){
+            // nothing left to do with it
+        }
+    }
+
+    // one polling round: directories with a new mtime are diffed, plus a slice of the files
+    private void pollRound(){
+        checkDirectories();
+        if(sweepIndex >= sweep.size()){
+            List<Path> files = new ArrayList<>();
+            for(Map.Entry<Path, Node> node: nodes.entrySet()){
+                if(!node.getValue().directory) files.add(node.getKey());
+            }
+            sweep = files;
+            sweepIndex = 0;
+        }
+        int end = Math.min(sweep.size(), sweepIndex + filesPerRound);
+        for(; sweepIndex < end; sweepIndex++){
+            Path file = sweep.get(sweepIndex);
+            if(nodes.containsKey(file)) refresh(file);
+        }
+    }
+
+    private void checkDirectories(){
+        // a directory that changed within the last mtime tick may change again
+        // without a new mtime, so it is listed again until it is older than that
+        long racyAfter = System.currentTimeMillis() - MTIME_GRANULARITY_MILLIS;
+        for(Path dir: new ArrayList<>(children.keySet())){
+            Node node = nodes.get(dir);
+            if(node == null) continue;
+            BasicFileAttributes attrs = stat(dir);
+            if(attrs == null || !node.sameAs(attrs) || node.mtime > racyAfter){
+                rescan(dir);
+            }
+        }
+    }
+
+    private static BasicFileAttributes stat(Path path){
+        try{
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }catch (IOException e){
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("watched");
+        Listener printer = changes -> System.out.println("batch of " + changes.size() + ": " + changes);
+        try(TreeWatcher watcher = new TreeWatcher(dir, printer)){
+            System.out.println(watcher.isPolling() ? "polling" : "native watch service");
+            Files.createDirectories(dir.resolve("reports/2024"));
+            Files.writeString(dir.resolve("reports/2024/jan.txt"), "1");
+            Files.writeString(dir.resolve("notes.txt"), "hello");
+            Thread.sleep(500);
+            Files.writeString(dir.resolve("notes.txt"), "hello again");
+            Thread.sleep(500);
+            Files.delete(dir.resolve("reports/2024/jan.txt"));
+            Files.delete(dir.resolve("reports/2024"));
+            Thread.sleep(500);
+        }
+
+        // same changes with the polling fallback
+        try(TreeWatcher watcher = new TreeWatcher(dir, printer, Mode.POLLING, DEFAULT_BATCH_WINDOW_MILLIS, 200, 1000)){
+            System.out.println(watcher.isPolling() ? "polling" : "native watch service");
+            Files.writeString(dir.resolve("notes.txt"), "edited in place");
+            Files.writeString(dir.resolve("todo.txt"), "new");
+            Thread.sleep(1000);
+        }
+
+        Files.delete(dir.resolve("todo.txt"));
+        Files.delete(dir.resolve("notes.txt"));
+        Files.delete(dir.resolve("reports"));
+        Files.delete(dir);
+    }
+}